@@ -0,0 +1,238 @@
+/*
+ * Reproductor de Música - Benchmarks de decodificación PCM
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decodificación completa de una pista de {@value #SECONDS} segundos a PCM de 16 bits
+ * a través de AudioInputStream (como el reproductor antes de la fuente mapeada) y,
+ * para WAV, también con {@link MappedPcmSource}. El tiempo por operación dividido
+ * entre la duración da el ritmo de decodificación respecto al tiempo real.
+ * <p>
+ * El WAV se genera en el arranque. Para MP3 se usa el archivo indicado con
+ * -Dbench.mp3=ruta (o la variable de entorno REPRODUCTOR_BENCH_MP3, que heredan
+ * las JVM de JMH) o, si no hay, uno sintético: tramas con información lateral
+ * válida y datos pseudoaleatorios, que recorren Huffman, recuantización, IMDCT y
+ * síntesis como una pista real (con tramas en silencio solo se mediría la síntesis).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+    static final int SECONDS = 10;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    // Trama MPEG-1 Layer III de 128 kbps, 44.1 kHz, estéreo: 417 bytes sin relleno
+    private static final byte[] MP3_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+    private static final int MP3_FRAME_BYTES = 417;
+    private static final int MP3_FRAME_SAMPLES = 1152;
+    private static final int MP3_SIDE_INFO_BYTES = 32;
+    // Tablas de Huffman sin linbits: los datos aleatorios no piden más bits de los que hay
+    private static final int[] MP3_TABLES = {1, 2, 3, 5, 6, 7, 8, 9, 10, 11, 12, 13, 15};
+
+    /**
+     * Pista de prueba en cada formato que pasa por AudioInputStream
+     */
+    @State(Scope.Thread)
+    public static class Pista {
+        @Param({"wav", "mp3"})
+        public String format;
+
+        File file;
+        boolean temporary;
+        final byte[] buffer = new byte[CHUNK_BYTES];
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            String mp3 = System.getProperty("bench.mp3", System.getenv("REPRODUCTOR_BENCH_MP3"));
+            if ("mp3".equals(format) && mp3 != null && !mp3.isEmpty()) {
+                file = new File(mp3);
+            } else {
+                file = File.createTempFile("reproductor-bench", "." + format);
+                temporary = true;
+                if ("wav".equals(format)) {
+                    writeWav(file);
+                } else {
+                    writeSyntheticMp3(file);
+                }
+            }
+
+            // Sin decodificador (p. ej. MP3 sin lib-mp3 en el classpath) el resultado no tendría sentido
+            try (AudioInputStream probe = AudioSystem.getAudioInputStream(file)) {
+                probe.getFormat();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (temporary) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * WAV para la fuente mapeada (solo lee PCM lineal)
+     */
+    @State(Scope.Thread)
+    public static class Wav {
+        File file;
+        final byte[] buffer = new byte[CHUNK_BYTES];
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = File.createTempFile("reproductor-bench", ".wav");
+            writeWav(file);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    /**
+     * Decodifica la pista entera con AudioSystem; devuelve los bytes PCM producidos
+     */
+    @Benchmark
+    public long audioInputStream(Pista pista) throws Exception {
+        try (AudioInputStream base = AudioSystem.getAudioInputStream(pista.file);
+             AudioInputStream pcm = toPcm16(base)) {
+            long total = 0;
+            int read;
+            while ((read = pcm.read(pista.buffer, 0, pista.buffer.length)) >= 0) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Lee el WAV entero con la fuente mapeada que usa el reproductor
+     */
+    @Benchmark
+    public long mappedPcmSource(Wav wav) throws IOException {
+        MappedPcmSource source = MappedPcmSource.open(wav.file);
+        try {
+            long total = 0;
+            int read;
+            while ((read = source.read(wav.buffer, 0, wav.buffer.length)) >= 0) {
+                total += read;
+            }
+            return total;
+        } finally {
+            source.close();
+        }
+    }
+
+    private static AudioInputStream toPcm16(AudioInputStream base) {
+        AudioFormat baseFormat = base.getFormat();
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(baseFormat.getEncoding())) {
+            return base;
+        }
+        AudioFormat decoded = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, baseFormat.getSampleRate(), 16,
+            baseFormat.getChannels(), baseFormat.getChannels() * 2, baseFormat.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(decoded, base);
+    }
+
+    /**
+     * WAV estéreo de 16 bits a 44.1 kHz con un tono de 440 Hz
+     */
+    private static void writeWav(File target) throws IOException {
+        AudioFormat wav = new AudioFormat(44100f, 16, 2, true, false);
+        int frames = 44100 * SECONDS;
+        byte[] data = new byte[frames * 4];
+        for (int i = 0; i < frames; i++) {
+            short sample = (short) (Math.sin(2 * Math.PI * 440 * i / 44100.0) * 8000);
+            data[4 * i] = data[4 * i + 2] = (byte) sample;
+            data[4 * i + 1] = data[4 * i + 3] = (byte) (sample >> 8);
+        }
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), wav, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, target);
+        }
+    }
+
+    /**
+     * Tramas CBR que se decodifican como ruido: cada gránulo y canal usa sus bits de la
+     * trama (sin reservorio) con ganancia, tablas y regiones al azar, y los datos
+     * principales son bytes aleatorios. La semilla es fija para que sea el mismo archivo
+     * en cada ejecución
+     */
+    private static void writeSyntheticMp3(File target) throws IOException {
+        int frames = (int) ((long) SECONDS * 44100 / MP3_FRAME_SAMPLES);
+        int dataStart = MP3_HEADER.length + MP3_SIDE_INFO_BYTES;
+        int bitsPerChannel = (MP3_FRAME_BYTES - dataStart) * 8 / 4; // 2 gránulos x 2 canales
+        Random random = new Random(0x5EED);
+        byte[] frame = new byte[MP3_FRAME_BYTES];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+            for (int i = 0; i < frames; i++) {
+                Arrays.fill(frame, (byte) 0);
+                System.arraycopy(MP3_HEADER, 0, frame, 0, MP3_HEADER.length);
+                int bit = MP3_HEADER.length * 8;
+                bit = putBits(frame, bit, 0, 9);  // main_data_begin: sin reservorio
+                bit = putBits(frame, bit, 0, 3);  // private_bits
+                bit = putBits(frame, bit, 0, 8);  // scfsi de los dos canales
+                for (int granule = 0; granule < 4; granule++) {
+                    bit = putBits(frame, bit, bitsPerChannel, 12);          // part2_3_length
+                    bit = putBits(frame, bit, 120 + random.nextInt(40), 9); // big_values
+                    bit = putBits(frame, bit, 150 + random.nextInt(20), 8); // global_gain
+                    bit = putBits(frame, bit, random.nextInt(16), 4);       // scalefac_compress
+                    bit = putBits(frame, bit, 0, 1);                        // bloques largos
+                    for (int region = 0; region < 3; region++) {
+                        bit = putBits(frame, bit, MP3_TABLES[random.nextInt(MP3_TABLES.length)], 5);
+                    }
+                    bit = putBits(frame, bit, random.nextInt(16), 4);       // region0_count
+                    bit = putBits(frame, bit, random.nextInt(8), 3);        // region1_count
+                    bit = putBits(frame, bit, 0, 2);                        // preflag, scalefac_scale
+                    bit = putBits(frame, bit, random.nextInt(2), 1);        // count1table_select
+                }
+                for (int j = dataStart; j < frame.length; j++) {
+                    frame[j] = (byte) random.nextInt(256);
+                }
+                out.write(frame);
+            }
+        }
+    }
+
+    /**
+     * Escribe los count bits bajos de value desde el bit indicado; devuelve el siguiente
+     */
+    private static int putBits(byte[] target, int bit, int value, int count) {
+        for (int i = count - 1; i >= 0; i--, bit++) {
+            if (((value >> i) & 1) != 0) {
+                target[bit >> 3] |= (byte) (0x80 >> (bit & 7));
+            }
+        }
+        return bit;
+    }
+}
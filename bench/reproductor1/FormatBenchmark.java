@@ -0,0 +1,68 @@
+/*
+ * Reproductor de Música - Benchmarks de nombres de archivo
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Filtro de formatos ({@link NodoLista#isValidAudioFormat}) y decodificación del
+ * nombre de archivo de una URL (NodoLista.getFileNameFromURL), que se ejecutan
+ * por cada archivo escaneado y por cada fila pintada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    // Mezcla típica de una carpeta de música: audio, portadas, listas y mayúsculas
+    private static final String[] NAMES = {
+        "01 - Intro.mp3", "02 - Canción.MP3", "cover.jpg", "03 - Balada.wav",
+        "folder.ini", "04 - Directo.aiff", "lista.m3u", "05 - Remix.au",
+        "Thumbs.db", "06 - Pista sin extensión"
+    };
+
+    private URL[] urls;
+
+    @Setup
+    public void setup() throws Exception {
+        urls = new URL[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            // File.toURI codifica espacios y acentos (%20, %C3%B3...)
+            urls[i] = new File("/música/Grandes éxitos/" + NAMES[i]).toURI().toURL();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void formatoValido(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(NodoLista.isValidAudioFormat(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void nombreDesdeURL(Blackhole blackhole) {
+        for (URL url : urls) {
+            blackhole.consume(NodoLista.getFileNameFromURL(url));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Reproductor de Música - Benchmarks de la lista de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.net.URL;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JList;
+import javax.swing.ListModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Acceso por índice a la lista (LinkedList frente a {@link Playlist}) y
+ * actualización de la JList con {@link NodoLista#updatePlaylistDisplay} y
+ * {@link NodoLista#LlenarJlistConLista}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PlaylistBenchmark {
+    private static final int ACCESSES = 1024;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private LinkedList<URL> linked;
+    private Playlist playlist;
+    private Playlist otherPlaylist;
+    private int[] indices;
+    private JList<String> jlist;
+
+    @Setup
+    public void setup() throws Exception {
+        linked = new LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            linked.add(new File("/música/Álbum " + (i / 12) + "/Pista " + i + " - Canción de prueba.mp3").toURI().toURL());
+        }
+        playlist = new Playlist(linked);
+        otherPlaylist = new Playlist(linked);
+
+        Random random = new Random(42);
+        indices = new int[ACCESSES];
+        for (int i = 0; i < ACCESSES; i++) {
+            indices[i] = random.nextInt(size);
+        }
+
+        jlist = new JList<>();
+        NodoLista.updatePlaylistDisplay(jlist, playlist);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void accesoIndiceLinkedList(Blackhole blackhole) {
+        for (int index : indices) {
+            blackhole.consume(linked.get(index));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void accesoIndicePlaylist(Blackhole blackhole) {
+        for (int index : indices) {
+            blackhole.consume(playlist.get(index));
+        }
+    }
+
+    /**
+     * La JList ya muestra esta lista: solo se sincroniza el modelo
+     */
+    @Benchmark
+    public ListModel<String> actualizarMismaLista() {
+        NodoLista.updatePlaylistDisplay(jlist, playlist);
+        return jlist.getModel();
+    }
+
+    /**
+     * Lista distinta en cada llamada: se instala un modelo nuevo
+     */
+    @Benchmark
+    public ListModel<String> llenarJListConLista() {
+        List<URL> next = jlist.getModel() instanceof PlaylistListModel
+            && ((PlaylistListModel) jlist.getModel()).getTracks() == playlist ? otherPlaylist : playlist;
+        NodoLista.LlenarJlistConLista(jlist, next);
+        return jlist.getModel();
+    }
+
+    /**
+     * Texto de todas las filas, como si se pintara la lista completa
+     */
+    @Benchmark
+    public void recorrerFilasModelo(Blackhole blackhole) {
+        ListModel<String> model = jlist.getModel();
+        for (int i = 0, n = model.getSize(); i < n; i++) {
+            blackhole.consume(model.getElementAt(i));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Reproductor de Música - Benchmarks del orden aleatorio
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creación del orden aleatorio (antes createShuffleOrder) y avance a la siguiente
+ * pista no reproducida (antes playNextShuffleTrack), ahora en {@link ShuffleEngine}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShuffleBenchmark {
+
+    @Param({"100", "1000", "10000", "1000000"})
+    public int size;
+
+    private ShuffleEngine shuffle;
+
+    @Setup
+    public void setup() {
+        shuffle = new ShuffleEngine(new Random(42));
+        shuffle.reset(size);
+    }
+
+    /**
+     * Nuevo ciclo aleatorio sobre toda la lista
+     */
+    @Benchmark
+    public ShuffleEngine crearOrden() {
+        shuffle.reset(size);
+        return shuffle;
+    }
+
+    /**
+     * Siguiente pista aleatoria; al completar el ciclo empieza otro, como hace la ventana
+     */
+    @Benchmark
+    public int siguientePista() {
+        int track = shuffle.next();
+        if (track < 0) {
+            shuffle.startNewCycle();
+            track = shuffle.next();
+        }
+        return track;
+    }
+
+    /**
+     * Ciclo completo: barajar y recorrer todas las pistas
+     */
+    @Benchmark
+    public int cicloCompleto() {
+        shuffle.reset(size);
+        int sum = 0;
+        int track;
+        while ((track = shuffle.next()) >= 0) {
+            sum += track;
+        }
+        return sum;
+    }
+}
@@ -19,17 +19,17 @@ echo.
 echo Compilando %COMPILE_MESSAGE%...
 
 REM Compilar el proyecto
-javac -cp "JMF-2.1.1e/lib/*;%MP3_LIBS%" -d build/classes src/reproductor1/*.java
+javac -cp "%MP3_LIBS%." -d build/classes src/reproductor1/*.java
 
 if %ERRORLEVEL% EQU 0 (
     echo ✅ Compilación exitosa
     echo.
     echo === COMO EJECUTAR ===
     echo Reproductor principal:
-    echo java -cp "build/classes;JMF-2.1.1e/lib/*;%MP3_LIBS%" reproductor1.VentanaPrincipal
+    echo java -cp "build/classes;%MP3_LIBS%" reproductor1.VentanaPrincipal
     echo.
     echo Verificar formatos:
-    echo java -cp "build/classes;JMF-2.1.1e/lib/*;%MP3_LIBS%" reproductor1.DemoVerificacionFormatos
+    echo java -cp "build/classes;%MP3_LIBS%" reproductor1.DemoVerificacionFormatos
     echo.
     if defined MP3_LIBS (
         echo 🎵 MP3 debería funcionar correctamente
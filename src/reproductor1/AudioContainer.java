@@ -0,0 +1,79 @@
+/*
+ * Reproductor de Música - Tipos de archivo de audio reconocidos por su contenido
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Contenedores que sabe abrir el reproductor. El tipo se deduce de los primeros
+ * bytes del archivo (RIFF/WAVE, FORM/AIFF, .snd, ID3 o sincronía MPEG), no de la
+ * extensión: un MP3 guardado como ".wav" se abre con el decodificador de MP3.
+ */
+public enum AudioContainer {
+    WAV("WAV"),
+    AIFF("AIFF"),
+    AU("AU"),
+    MP3("MP3");
+
+    private final String displayName;
+
+    AudioContainer(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Tipo del archivo según su contenido; null si no es ninguno de los conocidos
+     */
+    public static AudioContainer identify(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return identify(channel, file.getName());
+        }
+    }
+
+    /**
+     * Igual que {@link #identify(File)} sobre un canal ya abierto (no cambia su posición)
+     */
+    static AudioContainer identify(FileChannel channel, String fileName) throws IOException {
+        byte[] magic = MetadataReader.readAt(channel, 0, 12);
+        if (magic.length >= 12 && startsWith(magic, 0, "RIFF") && startsWith(magic, 8, "WAVE")) {
+            return WAV;
+        }
+        if (magic.length >= 12 && startsWith(magic, 0, "FORM")
+                && (startsWith(magic, 8, "AIFF") || startsWith(magic, 8, "AIFC"))) {
+            return AIFF;
+        }
+        if (magic.length >= 4 && startsWith(magic, 0, ".snd")) {
+            return AU;
+        }
+        if (magic.length >= 3 && startsWith(magic, 0, "ID3")) {
+            return MP3;
+        }
+        if (magic.length >= 4 && (magic[0] & 0xFF) == 0xFF && (magic[1] & 0xE0) == 0xE0) {
+            // Sincronía al inicio: se confirma con la cabecera de la trama siguiente
+            MetadataReader.Mp3Frame frame = MetadataReader.findFirstFrame(channel, 0, channel.size());
+            if (frame != null && frame.position == 0) {
+                return MP3;
+            }
+        }
+        // MP3 con basura delante de la primera trama: se busca solo si el nombre lo indica
+        if (fileName != null && fileName.toLowerCase().endsWith(".mp3")
+                && MetadataReader.findFirstFrame(channel, 0, channel.size()) != null) {
+            return MP3;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String ascii) {
+        return new String(data, offset, ascii.length(), StandardCharsets.ISO_8859_1).equals(ascii);
+    }
+}
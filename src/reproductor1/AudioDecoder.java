@@ -0,0 +1,30 @@
+/*
+ * Reproductor de Música - Decodificador de un tipo de archivo
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Abre archivos de un {@link AudioContainer} como fuentes PCM. Se registran con
+ * NodoLista.registrarDecodificador; el último registrado para un tipo tiene
+ * prioridad si está disponible.
+ */
+public interface AudioDecoder {
+
+    /**
+     * Fuente lista para reproducir; UnsupportedAudioFileException si el contenido no es válido
+     */
+    AudioSource open(File file) throws UnsupportedAudioFileException, IOException;
+
+    /**
+     * Si puede usarse en este sistema. Se consulta la primera vez que hace falta un
+     * decodificador de su tipo, así que aquí se pueden cargar sus bibliotecas
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Reproductor de Música - Buffer circular entre decodificación y salida
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Buffer circular de tamaño fijo para un productor (hilo de decodificación)
+ * y un consumidor (hilo de salida). Mantiene la memoria constante sin importar
+ * la duración de la pista.
+ * Admite marcas de frontera entre pistas para encadenarlas sin pausa: el lector
+ * nunca cruza una frontera en una misma lectura y la recoge con {@link #takeBoundary()}.
+ */
+public class AudioRingBuffer {
+    private final byte[] data;
+    private int readPos = 0;
+    private int writePos = 0;
+    private int count = 0;
+    private boolean endOfStream = false;
+    private boolean closed = false;
+    
+    // Posiciones absolutas de escritura/lectura y fronteras pendientes entre pistas
+    private static final int MAX_BOUNDARIES = 4;
+    private long totalWritten = 0;
+    private long totalRead = 0;
+    private final long[] boundaryPositions = new long[MAX_BOUNDARIES];
+    private final Object[] boundaryMarkers = new Object[MAX_BOUNDARIES];
+    private int boundaryHead = 0;
+    private int boundaryCount = 0;
+
+    public AudioRingBuffer(int capacity) {
+        data = new byte[capacity];
+    }
+
+    /**
+     * Escribe todos los bytes, bloqueando mientras el buffer esté lleno.
+     * Devuelve los bytes escritos (menos de length solo si el buffer se cerró)
+     */
+    public synchronized int write(byte[] buffer, int offset, int length) throws InterruptedException {
+        int written = 0;
+        while (written < length) {
+            while (count == data.length && !closed) {
+                wait();
+            }
+            if (closed) break;
+
+            int chunk = Math.min(length - written, data.length - count);
+            chunk = Math.min(chunk, data.length - writePos);
+            System.arraycopy(buffer, offset + written, data, writePos, chunk);
+            writePos = (writePos + chunk) % data.length;
+            count += chunk;
+            written += chunk;
+            totalWritten += chunk;
+            notifyAll();
+        }
+        return written;
+    }
+
+    /**
+     * Lee un múltiplo de alignment bytes, bloqueando hasta tener al menos alignment.
+     * Devuelve -1 al final del flujo o si el buffer se cerró
+     */
+    public synchronized int read(byte[] buffer, int offset, int length, int alignment) throws InterruptedException {
+        while (count < alignment && !endOfStream && !closed) {
+            wait();
+        }
+        if (closed || count < alignment) {
+            return -1;
+        }
+
+        int toRead = Math.min(length, count);
+        if (boundaryCount > 0 && boundaryPositions[boundaryHead] > totalRead) {
+            toRead = (int) Math.min(toRead, boundaryPositions[boundaryHead] - totalRead);
+        }
+        toRead -= toRead % alignment;
+        int read = 0;
+        while (read < toRead) {
+            int chunk = Math.min(toRead - read, data.length - readPos);
+            System.arraycopy(data, readPos, buffer, offset + read, chunk);
+            readPos = (readPos + chunk) % data.length;
+            read += chunk;
+        }
+        count -= read;
+        totalRead += read;
+        notifyAll();
+        return read;
+    }
+    
+    /**
+     * Marca que los próximos bytes escritos pertenecen a otra pista.
+     * Bloquea si ya hay demasiadas fronteras sin recoger; devuelve false si el buffer se cerró
+     */
+    public synchronized boolean markBoundary(Object marker) throws InterruptedException {
+        while (boundaryCount == MAX_BOUNDARIES && !closed) {
+            wait();
+        }
+        if (closed) return false;
+        
+        int slot = (boundaryHead + boundaryCount) % MAX_BOUNDARIES;
+        boundaryPositions[slot] = totalWritten;
+        boundaryMarkers[slot] = marker;
+        boundaryCount++;
+        notifyAll();
+        return true;
+    }
+    
+    /**
+     * Devuelve la marca de la frontera alcanzada por el lector, o null si aún no llegó a ninguna
+     */
+    public synchronized Object takeBoundary() {
+        if (boundaryCount == 0 || boundaryPositions[boundaryHead] > totalRead) {
+            return null;
+        }
+        Object marker = boundaryMarkers[boundaryHead];
+        boundaryMarkers[boundaryHead] = null;
+        boundaryHead = (boundaryHead + 1) % MAX_BOUNDARIES;
+        boundaryCount--;
+        notifyAll();
+        return marker;
+    }
+
+    /**
+     * Indica que el productor no escribirá más datos
+     */
+    public synchronized void markEndOfStream() {
+        endOfStream = true;
+        notifyAll();
+    }
+
+    /**
+     * Cierra el buffer despertando a los hilos bloqueados
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Vacía el buffer y lo deja listo para una nueva pista o posición
+     */
+    public synchronized void clear() {
+        readPos = 0;
+        writePos = 0;
+        count = 0;
+        endOfStream = false;
+        closed = false;
+        totalWritten = 0;
+        totalRead = 0;
+        for (int i = 0; i < MAX_BOUNDARIES; i++) {
+            boundaryMarkers[i] = null;
+        }
+        boundaryHead = 0;
+        boundaryCount = 0;
+        notifyAll();
+    }
+
+    public synchronized int available() {
+        return count;
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+}
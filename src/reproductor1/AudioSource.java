@@ -0,0 +1,39 @@
+/*
+ * Reproductor de Música - Fuente de audio PCM para el motor de streaming
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Fuente de muestras PCM ya decodificadas que el motor de streaming lee por bloques.
+ * Cada implementación se encarga de abrir el contenedor y de decodificarlo bajo demanda,
+ * de modo que nunca se carga la pista completa en memoria.
+ */
+public interface AudioSource extends Closeable {
+
+    /**
+     * Formato PCM de los bytes devueltos por {@link #read(byte[], int, int)}
+     */
+    AudioFormat getFormat();
+
+    /**
+     * Lee hasta length bytes (múltiplo del tamaño de frame) y devuelve -1 al final de la pista
+     */
+    int read(byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Duración total en microsegundos, o -1 si no se conoce sin decodificar
+     */
+    long getLengthMicros();
+
+    /**
+     * Sitúa la lectura en la posición indicada en microsegundos y devuelve aquella en
+     * que quedó realmente: alineada a frame, o la estimada de la trama en que se pudo
+     * retomar si la fuente solo sabe aproximar el salto
+     */
+    long seekMicros(long micros) throws IOException;
+}
@@ -0,0 +1,69 @@
+/*
+ * Reproductor de Música - Mezcla de dos pistas durante el fundido
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Mezcla en su sitio el bloque de la pista entrante con el de la saliente usando
+ * curvas de potencia constante (seno/coseno) precalculadas, para que el volumen
+ * percibido no baje a mitad del fundido. No reserva memoria: trabaja sobre los
+ * arreglos de bytes que le pasa el motor.
+ */
+final class CrossfadeMixer {
+    private static final int CURVE_STEPS = 1024;
+    // FADE_IN[i] = sen(i/N * pi/2); la salida usa la misma tabla al revés (coseno)
+    private static final float[] FADE_IN = new float[CURVE_STEPS + 1];
+
+    static {
+        for (int i = 0; i <= CURVE_STEPS; i++) {
+            FADE_IN[i] = (float) Math.sin(i * Math.PI / 2 / CURVE_STEPS);
+        }
+    }
+
+    private CrossfadeMixer() {
+    }
+
+    /**
+     * Indica si se puede mezclar este formato (PCM de 16 bits con signo)
+     */
+    static boolean supports(AudioFormat format) {
+        return AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+            && format.getSampleSizeInBits() == 16;
+    }
+
+    /**
+     * Deja en incoming la mezcla de ambas pistas para los frames [done, done + frames)
+     * de un fundido de total frames. Más allá de outgoingBytes la saliente ya terminó
+     * y cuenta como silencio
+     */
+    static void mix(byte[] incoming, byte[] outgoing, int length, int outgoingBytes,
+                    long done, long total, AudioFormat format) {
+        int frameSize = format.getFrameSize();
+        int channels = format.getChannels();
+        boolean bigEndian = format.isBigEndian();
+        int hi = bigEndian ? 0 : 1;
+        int lo = bigEndian ? 1 : 0;
+        int frames = length / frameSize;
+
+        int pos = 0;
+        for (int f = 0; f < frames; f++) {
+            long progress = done + f;
+            int step = progress >= total ? CURVE_STEPS : (int) (progress * CURVE_STEPS / total);
+            float gainIn = FADE_IN[step];
+            // Lo que quede en outgoing tras outgoingBytes es de un bloque anterior: se anula
+            float gainOut = pos < outgoingBytes ? FADE_IN[CURVE_STEPS - step] : 0f;
+            for (int c = 0; c < channels; c++) {
+                int in = (short) ((incoming[pos + hi] << 8) | (incoming[pos + lo] & 0xFF));
+                int out = (short) ((outgoing[pos + hi] << 8) | (outgoing[pos + lo] & 0xFF));
+                int mixed = (int) (in * gainIn + out * gainOut);
+                mixed = mixed > 32767 ? 32767 : (mixed < -32768 ? -32768 : mixed);
+                incoming[pos + hi] = (byte) (mixed >> 8);
+                incoming[pos + lo] = (byte) mixed;
+                pos += 2;
+            }
+        }
+    }
+}
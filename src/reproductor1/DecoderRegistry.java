@@ -0,0 +1,82 @@
+/*
+ * Reproductor de Música - Registro de decodificadores por tipo de archivo
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Decodificadores candidatos para cada {@link AudioContainer}. La elección se hace
+ * una sola vez por tipo, la primera vez que se abre un archivo de ese tipo, y queda
+ * guardada: las siguientes aperturas son una lectura de un arreglo. Así un
+ * decodificador que nadie usa (ni sus bibliotecas) no se carga nunca.
+ */
+final class DecoderRegistry {
+    // Marca de "ningún candidato disponible" en la caché
+    private static final AudioDecoder NONE = file -> null;
+
+    private final Map<AudioContainer, List<AudioDecoder>> candidates = new EnumMap<>(AudioContainer.class);
+    private final AtomicReferenceArray<AudioDecoder> resolved =
+        new AtomicReferenceArray<>(AudioContainer.values().length);
+
+    /**
+     * Añade un decodificador para el tipo; tiene prioridad sobre los ya registrados
+     */
+    synchronized void register(AudioContainer type, AudioDecoder decoder) {
+        candidates.computeIfAbsent(type, t -> new ArrayList<>()).add(0, decoder);
+        resolved.set(type.ordinal(), null); // Volver a elegir en el próximo uso
+    }
+
+    /**
+     * Decodificador elegido para el tipo, o null si ninguno está disponible
+     */
+    AudioDecoder decoderFor(AudioContainer type) {
+        AudioDecoder decoder = resolved.get(type.ordinal());
+        if (decoder == null) {
+            decoder = resolve(type);
+        }
+        return decoder == NONE ? null : decoder;
+    }
+
+    boolean isAvailable(AudioContainer type) {
+        return decoderFor(type) != null;
+    }
+
+    /**
+     * Identifica el archivo por su contenido y lo abre; UnsupportedAudioFileException si
+     * el tipo no se reconoce o no hay decodificador disponible para él
+     */
+    AudioSource open(File file) throws UnsupportedAudioFileException, IOException {
+        AudioContainer type = AudioContainer.identify(file);
+        if (type == null) {
+            throw new UnsupportedAudioFileException("Tipo de archivo no reconocido: " + file.getName());
+        }
+        AudioDecoder decoder = decoderFor(type);
+        if (decoder == null) {
+            throw new UnsupportedAudioFileException("No hay decodificador disponible para " + type.getDisplayName());
+        }
+        return decoder.open(file);
+    }
+
+    private synchronized AudioDecoder resolve(AudioContainer type) {
+        AudioDecoder decoder = resolved.get(type.ordinal());
+        if (decoder != null) return decoder;
+        decoder = NONE;
+        for (AudioDecoder candidate : candidates.getOrDefault(type, new ArrayList<>())) {
+            if (candidate.isAvailable()) {
+                decoder = candidate;
+                break;
+            }
+        }
+        resolved.set(type.ordinal(), decoder);
+        return decoder;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Reproductor de Música - Control de volumen por software
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Etapa de ganancia aplicada a las muestras PCM justo antes de escribirlas en la línea.
+ * No depende de que el mezclador ofrezca MASTER_GAIN, así que funciona en cualquier
+ * línea de salida y el volumen se conserva entre pistas.
+ * Cada cambio de volumen se alcanza con una rampa lineal a lo largo de un bloque
+ * (sin saltos audibles); con ganancia unitaria y sin rampa el bloque no se toca.
+ * {@link #scale} aplica una ganancia fija, como la corrección de sonoridad de cada pista.
+ * <p>
+ * Las conversiones de decibelios usan una tabla precalculada, de modo que mover el
+ * control de volumen nunca calcula logaritmos ni potencias.
+ */
+final class GainStage {
+    // Tabla dB -> lineal de -80 dB a +24 dB en pasos de 0.1 dB
+    private static final float MIN_DB = -80f;
+    private static final float MAX_DB = 24f;
+    private static final float[] DB_TO_LINEAR = new float[Math.round((MAX_DB - MIN_DB) * 10) + 1];
+
+    static {
+        for (int i = 0; i < DB_TO_LINEAR.length; i++) {
+            DB_TO_LINEAR[i] = (float) Math.pow(10.0, (MIN_DB + i / 10.0) / 20.0);
+        }
+    }
+
+    private volatile float volume = 1f;
+    // Ganancia ya aplicada al final del último bloque (solo la usa el hilo de salida)
+    private float currentGain = 1f;
+
+    /**
+     * Ganancia lineal para un valor en decibelios (0 por debajo de -80 dB)
+     */
+    static float dbToLinear(float dB) {
+        if (dB <= MIN_DB) return 0f;
+        if (dB >= MAX_DB) return DB_TO_LINEAR[DB_TO_LINEAR.length - 1];
+        return DB_TO_LINEAR[Math.round((dB - MIN_DB) * 10)];
+    }
+
+    /**
+     * Volumen de la aplicación (0.0 a 1.0, proporcional a la amplitud)
+     */
+    void setVolume(float newVolume) {
+        volume = Math.max(0f, Math.min(1f, newVolume));
+    }
+
+    float getVolume() {
+        return volume;
+    }
+
+    /**
+     * Aplica la ganancia sin rampa (al abrir una pista o tras vaciar la línea)
+     */
+    void reset() {
+        currentGain = volume;
+    }
+
+    /**
+     * Aplica la ganancia al bloque, en su sitio. length debe ser múltiplo del tamaño de frame
+     */
+    void process(byte[] data, int offset, int length, AudioFormat format) {
+        float target = volume;
+        float start = currentGain;
+        currentGain = target;
+        if (start == 1f && target == 1f) return;
+        apply(data, offset, length, format, start, (target - start) / Math.max(1, length / format.getFrameSize()));
+    }
+
+    /**
+     * Multiplica el bloque por una ganancia fija, en su sitio
+     */
+    static void scale(byte[] data, int offset, int length, AudioFormat format, float gain) {
+        if (gain != 1f) {
+            apply(data, offset, length, format, gain, 0f);
+        }
+    }
+
+    private static void apply(byte[] data, int offset, int length, AudioFormat format, float start, float step) {
+        int frameSize = format.getFrameSize();
+        int channels = format.getChannels();
+        int frames = length / frameSize;
+        if (frames == 0) return;
+        int bits = format.getSampleSizeInBits();
+        boolean bigEndian = format.isBigEndian();
+
+        if (bits == 16 && !bigEndian) {
+            process16le(data, offset, frames, channels, start, step);
+        } else if (bits == 16) {
+            process16be(data, offset, frames, channels, start, step);
+        } else if (bits == 8) {
+            process8(data, offset, frames, channels, start, step,
+                AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding()));
+        } else if (bits == 24 || bits == 32) {
+            processWide(data, offset, frames, channels, bits / 8, bigEndian, start, step);
+        }
+    }
+
+    // Bucles separados por formato: sin ramificaciones dentro del recorrido de muestras
+
+    private static void process16le(byte[] data, int offset, int frames, int channels, float gain, float step) {
+        int pos = offset;
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                int sample = (short) ((data[pos] & 0xFF) | (data[pos + 1] << 8));
+                int scaled = clamp16((int) (sample * gain));
+                data[pos] = (byte) scaled;
+                data[pos + 1] = (byte) (scaled >> 8);
+                pos += 2;
+            }
+            gain += step;
+        }
+    }
+
+    private static void process16be(byte[] data, int offset, int frames, int channels, float gain, float step) {
+        int pos = offset;
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                int sample = (short) ((data[pos] << 8) | (data[pos + 1] & 0xFF));
+                int scaled = clamp16((int) (sample * gain));
+                data[pos] = (byte) (scaled >> 8);
+                data[pos + 1] = (byte) scaled;
+                pos += 2;
+            }
+            gain += step;
+        }
+    }
+
+    private static void process8(byte[] data, int offset, int frames, int channels, float gain, float step, boolean unsigned) {
+        int bias = unsigned ? 128 : 0;
+        int pos = offset;
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                int sample = unsigned ? (data[pos] & 0xFF) - bias : data[pos];
+                int scaled = Math.max(-128, Math.min(127, (int) (sample * gain)));
+                data[pos] = (byte) (scaled + bias);
+                pos++;
+            }
+            gain += step;
+        }
+    }
+
+    private static void processWide(byte[] data, int offset, int frames, int channels, int bytes,
+                                    boolean bigEndian, float gain, float step) {
+        int shift = 32 - bytes * 8;
+        double max = (1L << (bytes * 8 - 1)) - 1;
+        double min = -(1L << (bytes * 8 - 1));
+        int pos = offset;
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                int sample = 0;
+                for (int b = 0; b < bytes; b++) {
+                    int value = data[pos + (bigEndian ? b : bytes - 1 - b)] & 0xFF;
+                    sample = (sample << 8) | value;
+                }
+                sample = (sample << shift) >> shift; // Extender el signo
+                long scaled = (long) Math.max(min, Math.min(max, (double) sample * gain));
+                for (int b = 0; b < bytes; b++) {
+                    data[pos + (bigEndian ? bytes - 1 - b : b)] = (byte) (scaled >> (8 * b));
+                }
+                pos += bytes;
+            }
+            gain += step;
+        }
+    }
+
+    private static int clamp16(int value) {
+        return value > 32767 ? 32767 : (value < -32768 ? -32768 : value);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Reproductor de Música - Resumen de un histograma de latencias
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Resumen inmutable de un {@link LatencyHistogram} en microsegundos. JMX lo
+ * muestra como un dato compuesto con un campo por cada getter.
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long minMicros;
+    private final long maxMicros;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+
+    @ConstructorProperties({"count", "minMicros", "maxMicros", "meanMicros",
+                            "p50Micros", "p90Micros", "p99Micros", "p999Micros"})
+    public HistogramSnapshot(long count, long minMicros, long maxMicros, double meanMicros,
+                             long p50Micros, long p90Micros, long p99Micros, long p999Micros) {
+        this.count = count;
+        this.minMicros = minMicros;
+        this.maxMicros = maxMicros;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    /**
+     * Objeto JSON con los mismos campos
+     */
+    String toJson() {
+        return String.format(java.util.Locale.ROOT,
+            "{\"count\": %d, \"minMicros\": %d, \"maxMicros\": %d, \"meanMicros\": %.1f, "
+                + "\"p50Micros\": %d, \"p90Micros\": %d, \"p99Micros\": %d, \"p999Micros\": %d}",
+            count, minMicros, maxMicros, meanMicros, p50Micros, p90Micros, p99Micros, p999Micros);
+    }
+}
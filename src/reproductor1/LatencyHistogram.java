@@ -0,0 +1,115 @@
+/*
+ * Reproductor de Música - Histograma de latencias sin bloqueos
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales, al estilo de
+ * HdrHistogram: los valores menores que {@value #LINEAR} tienen cubeta propia y
+ * por encima cada potencia de dos se divide en {@value #SUB_BUCKETS} cubetas, así
+ * el error relativo de cualquier percentil es menor del 3 % en todo el rango.
+ * <p>
+ * Registrar un valor es un incremento atómico sobre un arreglo de tamaño fijo: no
+ * reserva memoria ni toma bloqueos, y se puede llamar desde cualquier hilo.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;   // 32 por potencia de dos
+    private static final int LINEAR = SUB_BUCKETS * 2;      // 0..63 exactos
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Registra una medición (los valores negativos cuentan como 0)
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        long current;
+        while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+            // Otro hilo cambió el mínimo: reintentar
+        }
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Otro hilo cambió el máximo: reintentar
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * Copia coherente por cubeta (no atómica en conjunto) con los percentiles en microsegundos
+     */
+    HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        if (count == 0) {
+            return new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new HistogramSnapshot(count,
+            micros(min.get()), micros(max.get()), sum.sum() / 1000.0 / Math.max(1, total.sum()),
+            micros(percentile(copy, count, 0.50)), micros(percentile(copy, count, 0.90)),
+            micros(percentile(copy, count, 0.99)), micros(percentile(copy, count, 0.999)));
+    }
+
+    private long percentile(long[] copy, long count, double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += copy[i];
+            if (seen >= rank) {
+                // Punto medio de la cubeta, dentro del rango observado
+                long middle = (lowestOf(i) + highestOf(i)) / 2;
+                return Math.max(min.get(), Math.min(max.get(), middle));
+            }
+        }
+        return max.get();
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;  // >= 1
+        int top = (int) (value >>> shift);                              // SUB_BUCKETS..2*SUB_BUCKETS-1
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    static long lowestOf(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        long top = SUB_BUCKETS + (index - LINEAR) % SUB_BUCKETS;
+        return top << shift;
+    }
+
+    static long highestOf(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        return lowestOf(index) + (1L << shift) - 1;
+    }
+}
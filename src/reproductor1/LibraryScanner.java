@@ -0,0 +1,276 @@
+/*
+ * Reproductor de Música - Escaneo de carpetas de música
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Importa carpetas completas de música. Cada directorio se recorre con
+ * Files.walkFileTree (un nivel) dentro de una tarea de un ForkJoinPool, así
+ * que los subdirectorios se leen en paralelo. Se filtra con los formatos
+ * soportados por {@link NodoLista#isValidAudioFormat(String)}.
+ * Guarda fecha de modificación y tamaño de cada archivo: al volver a escanear
+ * una carpeta solo se informan los archivos nuevos, modificados o eliminados.
+ * Las pistas que ya estaban en la lista (p. ej. la restaurada al iniciar) se
+ * registran con {@link #seed}, así que no vuelven a informarse como nuevas.
+ */
+public class LibraryScanner {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // El recorrido espera sobre todo al disco o a la red: más hilos que núcleos
+    private static final int PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+    private final ExecutorService scanExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Reproductor-Biblioteca");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int batchSize;
+
+    // Estado conocido de cada archivo ya escaneado
+    private final Map<Path, FileStamp> index = new ConcurrentHashMap<>();
+
+    public LibraryScanner() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public LibraryScanner(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Fecha de modificación y tamaño con que se vio un archivo
+     */
+    private static final class FileStamp {
+        final long modified;
+        final long size;
+
+        FileStamp(BasicFileAttributes attrs) {
+            this(attrs.lastModifiedTime().toMillis(), attrs.size());
+        }
+
+        FileStamp(long modified, long size) {
+            this.modified = modified;
+            this.size = size;
+        }
+
+        boolean sameAs(FileStamp other) {
+            return modified == other.modified && size == other.size;
+        }
+    }
+
+    /**
+     * Resultado de un escaneo: los archivos nuevos ya se entregaron por lotes
+     */
+    public static final class ScanResult {
+        private final int added;
+        private final int unchanged;
+        private final List<Path> changed;
+        private final List<Path> removed;
+        private final long elapsedMillis;
+
+        ScanResult(int added, int unchanged, List<Path> changed, List<Path> removed, long elapsedMillis) {
+            this.added = added;
+            this.unchanged = unchanged;
+            this.changed = Collections.unmodifiableList(changed);
+            this.removed = Collections.unmodifiableList(removed);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getAddedCount() {
+            return added;
+        }
+
+        public int getUnchangedCount() {
+            return unchanged;
+        }
+
+        /**
+         * Archivos ya conocidos cuya fecha o tamaño cambió
+         */
+        public List<Path> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Archivos conocidos que ya no están en la carpeta
+         */
+        public List<Path> getRemoved() {
+            return removed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    /**
+     * Escanea la carpeta en segundo plano. Los archivos nuevos llegan a
+     * addedBatches en lotes de hasta batchSize, desde hilos del escáner
+     */
+    public CompletableFuture<ScanResult> scanAsync(Path root, Consumer<List<Path>> addedBatches) {
+        return CompletableFuture.supplyAsync(() -> scan(root, addedBatches), scanExecutor);
+    }
+
+    /**
+     * Escanea la carpeta bloqueando hasta terminar (ver {@link #scanAsync})
+     */
+    public synchronized ScanResult scan(Path root, Consumer<List<Path>> addedBatches) {
+        long start = System.nanoTime();
+        Path normalizedRoot = root.toAbsolutePath().normalize();
+
+        Scan scan = new Scan(addedBatches);
+        pool.invoke(new DirectoryTask(normalizedRoot, scan));
+        scan.flush();
+
+        // Lo que estaba bajo esta carpeta y no se volvió a ver fue eliminado
+        List<Path> removed = new ArrayList<>();
+        for (Path known : index.keySet()) {
+            if (known.startsWith(normalizedRoot) && !scan.seen.containsKey(known)) {
+                removed.add(known);
+            }
+        }
+        for (Path path : removed) {
+            index.remove(path);
+        }
+        index.putAll(scan.seen);
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new ScanResult(scan.added.get(), scan.unchanged.get(), scan.changed, removed, elapsed);
+    }
+
+    /**
+     * Da por conocido un archivo que ya está en la lista, con la fecha y el tamaño con que
+     * se leyó (-1 si no se sabe: el próximo escaneo lo informará como modificado, no como nuevo).
+     * No reemplaza lo que ya se haya visto al escanear
+     */
+    public void seed(Path file, long modified, long size) {
+        index.putIfAbsent(file.toAbsolutePath().normalize(), new FileStamp(modified, size));
+    }
+
+    /**
+     * Olvida todos los archivos escaneados (el próximo escaneo los tomará como nuevos)
+     */
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * Estado de un escaneo en curso, compartido por todas las tareas
+     */
+    private final class Scan {
+        final Consumer<List<Path>> sink;
+        final Map<Path, FileStamp> seen = new ConcurrentHashMap<>();
+        final List<Path> changed = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger added = new AtomicInteger();
+        final AtomicInteger unchanged = new AtomicInteger();
+        private List<Path> batch = new ArrayList<>(batchSize);
+
+        Scan(Consumer<List<Path>> sink) {
+            this.sink = sink;
+        }
+
+        void visit(Path file, BasicFileAttributes attrs) {
+            FileStamp stamp = new FileStamp(attrs);
+            seen.put(file, stamp);
+
+            FileStamp known = index.get(file);
+            if (known == null) {
+                added.incrementAndGet();
+                addToBatch(file);
+            } else if (!known.sameAs(stamp)) {
+                changed.add(file);
+            } else {
+                unchanged.incrementAndGet();
+            }
+        }
+
+        private void addToBatch(Path file) {
+            List<Path> full = null;
+            synchronized (this) {
+                batch.add(file);
+                if (batch.size() >= batchSize) {
+                    full = batch;
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (full != null) {
+                sink.accept(full);
+            }
+        }
+
+        void flush() {
+            List<Path> rest;
+            synchronized (this) {
+                rest = batch;
+                batch = new ArrayList<>(0);
+            }
+            if (!rest.isEmpty()) {
+                sink.accept(rest);
+            }
+        }
+    }
+
+    /**
+     * Lee un directorio y reparte sus subdirectorios como nuevas tareas
+     */
+    private static final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path directory;
+        private final Scan scan;
+
+        DirectoryTask(Path directory, Scan scan) {
+            this.directory = directory;
+            this.scan = scan;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try {
+                // Profundidad 1: los subdirectorios llegan a visitFile con sus atributos
+                Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isDirectory()) {
+                            subdirectories.add(new DirectoryTask(file, scan));
+                        } else if (attrs.isRegularFile() && NodoLista.isValidAudioFormat(file.getFileName().toString())) {
+                            scan.visit(file, attrs);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE; // Sin permisos o borrado durante el escaneo
+                    }
+                });
+            } catch (IOException e) {
+                return; // Directorio ilegible: se omite
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Reproductor de Música - Medición de sonoridad EBU R128
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Sonoridad integrada según EBU R128 / ITU-R BS.1770 y pico de muestra de una pista.
+ * Filtra con la ponderación K (dos biquads por canal), acumula la energía en
+ * sub-bloques de 100 ms y al final combina bloques de 400 ms con solapamiento del
+ * 75 %, aplicando la puerta absoluta (-70 LUFS) y la relativa (-10 LU).
+ * Se alimenta con bloques PCM tal como salen de un {@link AudioSource}.
+ */
+final class LoudnessMeter {
+    private static final double ABSOLUTE_GATE_LUFS = -70.0;
+    private static final double RELATIVE_GATE_LU = -10.0;
+
+    private final int channels;
+    private final double[] weights;
+    // Coeficientes de los dos filtros (pre-filtro de estantería y pasa-altos RLB)
+    private final double b0, b1, b2, a1, a2;
+    private final double c0, c1, c2, d1, d2;
+    // Estado de los filtros por canal (forma directa II transpuesta)
+    private final double[] s1, s2, t1, t2;
+
+    private final int subBlockFrames;
+    private int subBlockFill = 0;
+    private double subBlockSum = 0;
+    private double[] energies = new double[1024]; // Energía media de cada sub-bloque de 100 ms
+    private int energyCount = 0;
+    private float peak = 0;
+
+    LoudnessMeter(float sampleRate, int channels) {
+        this.channels = channels;
+        this.weights = channelWeights(channels);
+        this.subBlockFrames = Math.max(1, Math.round(sampleRate / 10));
+
+        // Pre-filtro: estantería de altas (+4 dB sobre ~1.7 kHz)
+        double f0 = 1681.974450955533;
+        double gain = 3.999843853973347;
+        double q = 0.7071752369554196;
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double vh = Math.pow(10.0, gain / 20.0);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1.0 + k / q + k * k;
+        b0 = (vh + vb * k / q + k * k) / a0;
+        b1 = 2.0 * (k * k - vh) / a0;
+        b2 = (vh - vb * k / q + k * k) / a0;
+        a1 = 2.0 * (k * k - 1.0) / a0;
+        a2 = (1.0 - k / q + k * k) / a0;
+
+        // Pasa-altos RLB (~38 Hz)
+        f0 = 38.13547087602444;
+        q = 0.5003270373238773;
+        k = Math.tan(Math.PI * f0 / sampleRate);
+        a0 = 1.0 + k / q + k * k;
+        c0 = 1.0;
+        c1 = -2.0;
+        c2 = 1.0;
+        d1 = 2.0 * (k * k - 1.0) / a0;
+        d2 = (1.0 - k / q + k * k) / a0;
+
+        s1 = new double[channels];
+        s2 = new double[channels];
+        t1 = new double[channels];
+        t2 = new double[channels];
+    }
+
+    /**
+     * Pesos por canal de BS.1770: 5.1 en orden L R C LFE Ls Rs (el LFE no cuenta)
+     */
+    private static double[] channelWeights(int channels) {
+        double[] weights = new double[channels];
+        java.util.Arrays.fill(weights, 1.0);
+        if (channels == 5) {
+            weights[3] = weights[4] = 1.41;
+        } else if (channels == 6) {
+            weights[3] = 0.0;
+            weights[4] = weights[5] = 1.41;
+        }
+        return weights;
+    }
+
+    /**
+     * Agrega un bloque PCM (múltiplo del tamaño de frame)
+     */
+    void add(byte[] data, int length, AudioFormat format) {
+        int bytes = (format.getSampleSizeInBits() + 7) / 8;
+        boolean bigEndian = format.isBigEndian();
+        boolean unsigned = AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding());
+        double scale = 1.0 / (1L << (bytes * 8 - 1));
+        int frameSize = format.getFrameSize();
+        int frames = length / frameSize;
+
+        int pos = 0;
+        for (int f = 0; f < frames; f++) {
+            double frameSum = 0;
+            for (int c = 0; c < channels; c++) {
+                double x = sample(data, pos, bytes, bigEndian, unsigned) * scale;
+                pos += bytes;
+                float magnitude = (float) Math.abs(x);
+                if (magnitude > peak) peak = magnitude;
+
+                // Ponderación K: estantería y luego pasa-altos
+                double y = b0 * x + s1[c];
+                s1[c] = b1 * x - a1 * y + s2[c];
+                s2[c] = b2 * x - a2 * y;
+                double z = c0 * y + t1[c];
+                t1[c] = c1 * y - d1 * z + t2[c];
+                t2[c] = c2 * y - d2 * z;
+
+                frameSum += weights[c] * z * z;
+            }
+            subBlockSum += frameSum;
+            if (++subBlockFill == subBlockFrames) {
+                pushEnergy(subBlockSum / subBlockFrames);
+                subBlockSum = 0;
+                subBlockFill = 0;
+            }
+        }
+    }
+
+    private static int sample(byte[] data, int pos, int bytes, boolean bigEndian, boolean unsigned) {
+        if (bytes == 2) {
+            return bigEndian
+                ? (short) ((data[pos] << 8) | (data[pos + 1] & 0xFF))
+                : (short) ((data[pos] & 0xFF) | (data[pos + 1] << 8));
+        }
+        if (bytes == 1) {
+            return unsigned ? (data[pos] & 0xFF) - 128 : data[pos];
+        }
+        int value = 0;
+        for (int b = 0; b < bytes; b++) {
+            value = (value << 8) | (data[pos + (bigEndian ? b : bytes - 1 - b)] & 0xFF);
+        }
+        int shift = 32 - bytes * 8;
+        return (value << shift) >> shift;
+    }
+
+    private void pushEnergy(double energy) {
+        if (energyCount == energies.length) {
+            double[] grown = new double[energies.length * 2];
+            System.arraycopy(energies, 0, grown, 0, energyCount);
+            energies = grown;
+        }
+        energies[energyCount++] = energy;
+    }
+
+    /**
+     * Sonoridad integrada en LUFS; -infinito si la pista es silencio o dura menos de 400 ms
+     */
+    float getIntegratedLoudness() {
+        int blocks = energyCount - 3;
+        if (blocks <= 0) return Float.NEGATIVE_INFINITY;
+
+        double absoluteGate = energyOf(ABSOLUTE_GATE_LUFS);
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < blocks; i++) {
+            double block = blockEnergy(i);
+            if (block > absoluteGate) {
+                sum += block;
+                count++;
+            }
+        }
+        if (count == 0) return Float.NEGATIVE_INFINITY;
+
+        double relativeGate = energyOf(loudnessOf(sum / count) + RELATIVE_GATE_LU);
+        double gatedSum = 0;
+        int gatedCount = 0;
+        for (int i = 0; i < blocks; i++) {
+            double block = blockEnergy(i);
+            if (block > absoluteGate && block > relativeGate) {
+                gatedSum += block;
+                gatedCount++;
+            }
+        }
+        return gatedCount == 0 ? Float.NEGATIVE_INFINITY : (float) loudnessOf(gatedSum / gatedCount);
+    }
+
+    /**
+     * Pico de muestra (1.0 = escala completa)
+     */
+    float getPeak() {
+        return peak;
+    }
+
+    // Bloque de 400 ms = cuatro sub-bloques consecutivos
+    private double blockEnergy(int first) {
+        return (energies[first] + energies[first + 1] + energies[first + 2] + energies[first + 3]) / 4;
+    }
+
+    private static double loudnessOf(double energy) {
+        return -0.691 + 10.0 * Math.log10(energy);
+    }
+
+    private static double energyOf(double loudness) {
+        return Math.pow(10.0, (loudness + 0.691) / 10.0);
+    }
+}
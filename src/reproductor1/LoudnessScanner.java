@@ -0,0 +1,153 @@
+/*
+ * Reproductor de Música - Análisis de sonoridad en segundo plano
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Mide la sonoridad (EBU R128) y el pico de las pistas de la lista con un grupo
+ * fijo de hilos de baja prioridad, uno menos que núcleos. Cada pista se decodifica
+ * de forma independiente, así que el trabajo escala casi lineal con los núcleos.
+ * El resultado se guarda en la caché de metadatos, de modo que cada archivo se
+ * analiza una sola vez mientras no cambie.
+ * <p>
+ * Mientras la condición de freno sea verdadera (por ejemplo, hay audio sonando)
+ * solo trabaja un hilo, para no competir con la decodificación de la reproducción.
+ * {@link #cancel()} detiene el trabajo en curso en el siguiente bloque.
+ */
+public class LoudnessScanner {
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final long THROTTLE_POLL_MS = 250;
+
+    private final ExecutorService pool;
+    private final BooleanSupplier throttle;
+    // Cada análisis lleva el número de generación con que empezó; cancelar la incrementa
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public LoudnessScanner(BooleanSupplier throttle) {
+        this.throttle = throttle;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(WORKERS, runnable -> {
+            Thread thread = new Thread(runnable, "Reproductor-Sonoridad-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Analiza las pistas que aún no tienen sonoridad guardada. onAnalyzed recibe cada
+     * pista terminada (desde un hilo del grupo). El futuro se completa al acabar o cancelar
+     */
+    public CompletableFuture<Void> analyze(List<URL> tracks, Consumer<URL> onAnalyzed) {
+        // Las ya analizadas (y sin cambios) se descartan en cada hilo con solo consultar la caché
+        Queue<URL> pending = new ConcurrentLinkedQueue<>(tracks);
+
+        int job = generation.get();
+        int workers = Math.min(WORKERS, pending.size());
+        List<CompletableFuture<Void>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            final int worker = i;
+            running.add(CompletableFuture.runAsync(() -> work(worker, job, pending, onAnalyzed), pool));
+        }
+        return CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Detiene los análisis en curso y descarta los pendientes
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    private boolean cancelled(int job) {
+        return generation.get() != job;
+    }
+
+    private void work(int worker, int job, Queue<URL> pending, Consumer<URL> onAnalyzed) {
+        byte[] buffer = new byte[CHUNK_BYTES]; // Uno por hilo para toda la cola
+        URL url;
+        while (!cancelled(job) && (url = pending.poll()) != null) {
+            try {
+                if (analyzeTrack(url, worker, job, buffer) && onAnalyzed != null) {
+                    onAnalyzed.accept(url);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("No se pudo analizar " + url + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean analyzeTrack(URL url, int worker, int job, byte[] buffer) throws IOException, InterruptedException {
+        File file = NodoLista.getFileFromURL(url);
+        long modified = file.lastModified();
+        long size = file.length();
+        TrackMetadata metadata = NodoLista.obtenerMetadatos(url);
+        if (metadata == null || metadata.hasLoudness()) return false;
+
+        AudioSource source;
+        try {
+            source = NodoLista.abrirParaAnalisis(file);
+        } catch (UnsupportedAudioFileException e) {
+            // Contenido que ningún decodificador entiende: se guarda para no reintentarlo en cada arranque
+            store(file, modified, size, metadata.withoutLoudness());
+            return false;
+        }
+        if (source == null) {
+            return false; // Decodificador no disponible ahora: se analizará cuando lo esté
+        }
+        try {
+            AudioFormat format = source.getFormat();
+            LoudnessMeter meter = new LoudnessMeter(format.getSampleRate(), format.getChannels());
+            int length = buffer.length - buffer.length % format.getFrameSize();
+            int read;
+            while ((read = source.read(buffer, 0, length)) >= 0) {
+                if (cancelled(job)) return false;
+                waitWhileThrottled(worker, job);
+                meter.add(buffer, read, format);
+            }
+            store(file, modified, size, metadata.withLoudness(meter.getIntegratedLoudness(), meter.getPeak()));
+            return true;
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * Con el freno puesto solo sigue el primer hilo; los demás esperan
+     */
+    private void waitWhileThrottled(int worker, int job) throws InterruptedException {
+        while (worker > 0 && throttle.getAsBoolean() && !cancelled(job)) {
+            Thread.sleep(THROTTLE_POLL_MS);
+        }
+    }
+
+    /**
+     * Guarda el resultado si el archivo no cambió durante el análisis
+     */
+    private static void store(File file, long modified, long size, TrackMetadata analyzed) {
+        if (file.lastModified() == modified && file.length() == size) {
+            NodoLista.getMetadataCache().put(file.getAbsolutePath(), modified, size, analyzed);
+        }
+    }
+}
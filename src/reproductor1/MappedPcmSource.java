@@ -0,0 +1,252 @@
+/*
+ * Reproductor de Música - Lectura de WAV/AIFF/AU mapeada en memoria
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Fuente PCM para WAV, AIFF/AIFC y AU que interpreta las cabeceras por sí misma
+ * y mapea en memoria el bloque de muestras. Cada lectura es una sola copia del
+ * mapeo al buffer del llamador (sin las capas de AudioInputStream), y saltar a
+ * una posición es solo calcular un desplazamiento.
+ * Solo acepta PCM lineal sin comprimir; para el resto {@link #open} devuelve null.
+ */
+public class MappedPcmSource implements AudioSource {
+    // Ventana máxima mapeada a la vez (un MappedByteBuffer no supera 2 GB)
+    private static final long MAX_WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final AudioFormat format;
+    private final long dataOffset;   // Inicio de las muestras en el archivo
+    private final long dataLength;   // Bytes de muestras (múltiplo del tamaño de frame)
+    private final int frameSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;        // Posición (relativa a los datos) del inicio de la ventana
+    private long position;           // Próximo byte a leer (relativo a los datos)
+
+    private MappedPcmSource(FileChannel channel, AudioFormat format, long dataOffset, long dataLength) {
+        this.channel = channel;
+        this.format = format;
+        this.frameSize = format.getFrameSize();
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength - dataLength % frameSize;
+    }
+
+    /**
+     * Abre el archivo si es WAV, AIFF o AU con PCM lineal; null si hace falta otro decodificador
+     */
+    public static MappedPcmSource open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            MappedPcmSource source = parse(channel);
+            if (source == null) {
+                channel.close();
+            }
+            return source;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static MappedPcmSource parse(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        byte[] magic = MetadataReader.readAt(channel, 0, 12);
+        if (magic.length < 12) return null;
+        String riff = new String(magic, 0, 4, StandardCharsets.ISO_8859_1);
+        String kind = new String(magic, 8, 4, StandardCharsets.ISO_8859_1);
+
+        if (riff.equals("RIFF") && kind.equals("WAVE")) {
+            return parseWav(channel, fileSize);
+        }
+        if (riff.equals("FORM") && (kind.equals("AIFF") || kind.equals("AIFC"))) {
+            return parseAiff(channel, fileSize, kind.equals("AIFC"));
+        }
+        if (riff.equals(".snd")) {
+            return parseAu(channel, fileSize);
+        }
+        return null;
+    }
+
+    // =============== CABECERAS ===============
+
+    private static MappedPcmSource parseWav(FileChannel channel, long fileSize) throws IOException {
+        AudioFormat format = null;
+        long pos = 12;
+        while (pos + 8 <= fileSize) {
+            ByteBuffer header = ByteBuffer.wrap(MetadataReader.readAt(channel, pos, 8)).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.remaining() < 8) return null;
+            String id = new String(header.array(), 0, 4, StandardCharsets.ISO_8859_1);
+            long size = header.getInt(4) & 0xFFFFFFFFL;
+            long body = pos + 8;
+
+            if (id.equals("fmt ")) {
+                ByteBuffer fmt = ByteBuffer.wrap(MetadataReader.readAt(channel, body, 26)).order(ByteOrder.LITTLE_ENDIAN);
+                if (fmt.remaining() < 16) return null;
+                int tag = fmt.getShort(0) & 0xFFFF;
+                if (tag == 0xFFFE && fmt.remaining() >= 26) {
+                    tag = fmt.getShort(24) & 0xFFFF; // WAVE_FORMAT_EXTENSIBLE: el subformato manda
+                }
+                if (tag != 1) return null; // Solo PCM entero
+                int channels = fmt.getShort(2) & 0xFFFF;
+                int sampleRate = fmt.getInt(4);
+                int blockAlign = fmt.getShort(12) & 0xFFFF;
+                int bits = fmt.getShort(14) & 0xFFFF;
+                format = pcmFormat(sampleRate, bits, channels, blockAlign, bits > 8, false);
+            } else if (id.equals("data")) {
+                if (format == null) return null;
+                return new MappedPcmSource(channel, format, body, Math.min(size, fileSize - body));
+            }
+            pos = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    private static MappedPcmSource parseAiff(FileChannel channel, long fileSize, boolean aifc) throws IOException {
+        AudioFormat format = null;
+        long pos = 12;
+        while (pos + 8 <= fileSize) {
+            byte[] header = MetadataReader.readAt(channel, pos, 8);
+            if (header.length < 8) return null;
+            String id = new String(header, 0, 4, StandardCharsets.ISO_8859_1);
+            long size = MpegFrameHeader.readInt(header, 4) & 0xFFFFFFFFL;
+            long body = pos + 8;
+
+            if (id.equals("COMM")) {
+                byte[] comm = MetadataReader.readAt(channel, body, 22);
+                if (comm.length < 18) return null;
+                ByteBuffer b = ByteBuffer.wrap(comm);
+                int channels = b.getShort(0) & 0xFFFF;
+                int bits = b.getShort(6) & 0xFFFF;
+                float sampleRate = (float) MetadataReader.extendedToDouble(comm, 8);
+                boolean bigEndian = true;
+                if (aifc && comm.length >= 22) {
+                    String compression = new String(comm, 18, 4, StandardCharsets.ISO_8859_1);
+                    if (compression.equals("sowt")) {
+                        bigEndian = false; // PCM little-endian
+                    } else if (!compression.equals("NONE") && !compression.equals("twos")) {
+                        return null;
+                    }
+                }
+                int frameSize = channels * ((bits + 7) / 8);
+                format = pcmFormat(sampleRate, bits, channels, frameSize, true, bigEndian);
+            } else if (id.equals("SSND")) {
+                if (format == null) return null;
+                byte[] ssnd = MetadataReader.readAt(channel, body, 8);
+                if (ssnd.length < 8) return null;
+                long offset = MpegFrameHeader.readInt(ssnd, 0) & 0xFFFFFFFFL;
+                long start = body + 8 + offset;
+                long length = Math.min(size - 8 - offset, fileSize - start);
+                return new MappedPcmSource(channel, format, start, Math.max(0, length));
+            }
+            pos = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    private static MappedPcmSource parseAu(FileChannel channel, long fileSize) throws IOException {
+        byte[] header = MetadataReader.readAt(channel, 0, 24);
+        if (header.length < 24) return null;
+        ByteBuffer b = ByteBuffer.wrap(header);
+        long offset = b.getInt(4) & 0xFFFFFFFFL;
+        long dataSize = b.getInt(8) & 0xFFFFFFFFL;
+        int encoding = b.getInt(12);
+        int sampleRate = b.getInt(16);
+        int channels = b.getInt(20);
+
+        int bits;
+        switch (encoding) {
+            case 2: bits = 8; break;
+            case 3: bits = 16; break;
+            case 4: bits = 24; break;
+            case 5: bits = 32; break;
+            default: return null; // µ-law, A-law y coma flotante van por AudioSystem
+        }
+        if (dataSize == 0xFFFFFFFFL || offset + dataSize > fileSize) {
+            dataSize = fileSize - offset;
+        }
+        AudioFormat format = pcmFormat(sampleRate, bits, channels, channels * bits / 8, true, true);
+        return new MappedPcmSource(channel, format, offset, Math.max(0, dataSize));
+    }
+
+    private static AudioFormat pcmFormat(float sampleRate, int bits, int channels, int frameSize,
+                                         boolean signed, boolean bigEndian) {
+        return new AudioFormat(signed ? AudioFormat.Encoding.PCM_SIGNED : AudioFormat.Encoding.PCM_UNSIGNED,
+            sampleRate, bits, channels, frameSize, sampleRate, bigEndian);
+    }
+
+    // =============== LECTURA ===============
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (position >= dataLength) {
+            return -1;
+        }
+        length -= length % frameSize;
+        if (length <= 0) {
+            return 0;
+        }
+
+        ensureWindow();
+        long windowEnd = windowStart + window.capacity();
+        int count = (int) Math.min(length, Math.min(dataLength, windowEnd) - position);
+        count -= count % frameSize;
+        if (count <= 0) {
+            // Un frame cruza el borde de la ventana: remapear desde él
+            mapWindow(position);
+            count = (int) Math.min(length, Math.min(dataLength, windowStart + window.capacity()) - position);
+            count -= count % frameSize;
+        }
+
+        window.position((int) (position - windowStart));
+        window.get(buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    private void ensureWindow() throws IOException {
+        if (window == null || position < windowStart || position >= windowStart + window.capacity()) {
+            mapWindow(position);
+        }
+    }
+
+    private void mapWindow(long start) throws IOException {
+        long size = Math.min(MAX_WINDOW, dataLength - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + start, size);
+        windowStart = start;
+    }
+
+    @Override
+    public long getLengthMicros() {
+        return (long) (dataLength / frameSize * 1000000L / format.getFrameRate());
+    }
+
+    @Override
+    public long seekMicros(long micros) {
+        long frame = (long) (micros / 1000000.0 * format.getFrameRate());
+        position = Math.max(0, Math.min(dataLength, frame * frameSize));
+        return (long) (position / frameSize * 1000000L / format.getFrameRate());
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null; // El sistema libera el mapeo cuando el buffer se recolecta
+        channel.close();
+    }
+}
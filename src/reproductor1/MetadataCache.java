@@ -0,0 +1,358 @@
+/*
+ * Reproductor de Música - Caché en disco de metadatos
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché persistente de {@link TrackMetadata} con clave ruta + fecha de modificación + tamaño.
+ * El archivo es un registro binario de solo anexado: al abrirlo se mapea en memoria y
+ * solo se indexan las rutas; cada entrada se decodifica del mapeo cuando se pide.
+ * Así, reiniciar con una lista enorme no abre ni un archivo de audio ni carga
+ * en el heap más que el índice de rutas.
+ * <p>
+ * Cada actualización de una ruta deja obsoleto su registro anterior. Al abrir, si los
+ * registros obsoletos superan a los vigentes, se reescriben solo los vigentes en un
+ * archivo temporal que reemplaza al actual.
+ */
+public class MetadataCache {
+    private static final int MAGIC = 0x524D4331; // "RMC1"
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final File file;
+    private FileChannel channel;
+    private ByteBuffer mapped; // Registros existentes al abrir (solo lectura)
+    private final Map<String, Integer> mappedIndex = new HashMap<>();
+    // Registros agregados desde que se abrió (tienen prioridad sobre el mapeo)
+    private final Map<String, Entry> recent = new ConcurrentHashMap<>();
+    private long appendPosition;
+
+    /**
+     * Metadatos con la fecha y el tamaño del archivo del que se leyeron
+     */
+    static final class Entry {
+        final long modified;
+        final long size;
+        final TrackMetadata metadata;
+
+        Entry(long modified, long size, TrackMetadata metadata) {
+            this.modified = modified;
+            this.size = size;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * Caché en la carpeta de configuración del usuario (~/.reproductor/metadatos.cache)
+     */
+    public static MetadataCache openDefault() {
+        File directory = new File(System.getProperty("user.home"), ".reproductor");
+        return new MetadataCache(new File(directory, "metadatos.cache"));
+    }
+
+    public MetadataCache(File file) {
+        this.file = file;
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            // Sin caché persistente: se sigue funcionando solo en memoria
+            System.err.println("Caché de metadatos no disponible: " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    private void open() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+        int records = openAndIndex();
+        if (records - mappedIndex.size() > mappedIndex.size() && compact()) {
+            openAndIndex();
+        }
+    }
+
+    /**
+     * Abre y mapea el archivo e indexa sus rutas; devuelve cuántos registros tiene
+     * (contando los que otra escritura posterior de la misma ruta dejó obsoletos)
+     */
+    private int openAndIndex() throws IOException {
+        mapped = null;
+        mappedIndex.clear();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        if (size < 4) {
+            writeHeader();
+            return 0;
+        }
+
+        MappedByteBuffer map;
+        try {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (RuntimeException e) {
+            // Más de 2 GB (no se puede mapear ni direccionar con int): empezar de nuevo
+            System.err.println("Caché de metadatos descartada: " + e.getMessage());
+            writeHeader();
+            return 0;
+        }
+        if (map.getInt(0) != MAGIC) {
+            writeHeader(); // Formato desconocido o versión anterior: empezar de nuevo
+            return 0;
+        }
+        mapped = map;
+
+        // Indexar solo las rutas; un registro incompleto al final (cierre abrupto) se descarta
+        int records = 0;
+        int pos = 4;
+        while (pos + 4 <= size) {
+            int length = map.getInt(pos);
+            if (length <= 2 || length > MAX_RECORD_BYTES || pos + 4 + length > size) break;
+            String path = readString(map, pos + 4);
+            if (path == null) break;
+            mappedIndex.put(path, pos + 4);
+            records++;
+            pos += 4 + length;
+        }
+        appendPosition = pos;
+        return records;
+    }
+
+    /**
+     * Copia los registros vigentes a un archivo temporal y lo pone en lugar del actual.
+     * Deja el archivo cerrado si lo reemplazó; si no (p. ej. Windows no deja reemplazar
+     * un archivo aún mapeado) lo deja como estaba y devuelve false
+     */
+    private boolean compact() {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            header.putInt(0, MAGIC);
+            long position = out.write(header, 0);
+            for (int offset : mappedIndex.values()) {
+                ByteBuffer record = mapped.duplicate();
+                record.limit(offset + mapped.getInt(offset - 4)).position(offset - 4);
+                while (record.hasRemaining()) {
+                    position += out.write(record, position);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo compactar la caché de metadatos: " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+
+        mapped = null;
+        closeQuietly();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            temp.delete();
+            try {
+                openAndIndex(); // Seguir con el archivo sin compactar; se reintenta en el próximo inicio
+            } catch (IOException reopen) {
+                closeQuietly();
+            }
+            return false;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(4);
+        header.putInt(0, MAGIC);
+        channel.write(header, 0);
+        appendPosition = 4;
+    }
+
+    /**
+     * Metadatos guardados si la fecha y el tamaño coinciden con los del archivo; null si no
+     */
+    public TrackMetadata get(String path, long modified, long size) {
+        Entry entry = lookup(path);
+        if (entry == null || entry.modified != modified || entry.size != size) {
+            return null;
+        }
+        return entry.metadata;
+    }
+
+    /**
+     * Últimos metadatos guardados para la ruta sin comprobar el archivo (para mostrar al instante)
+     */
+    public TrackMetadata peek(String path) {
+        Entry entry = lookup(path);
+        return entry != null ? entry.metadata : null;
+    }
+
+    /**
+     * Entrada guardada con su fecha y tamaño, sin comprobar el archivo
+     */
+    Entry peekEntry(String path) {
+        return lookup(path);
+    }
+
+    /**
+     * Guarda los metadatos en memoria y los anexa al archivo
+     */
+    public void put(String path, long modified, long size, TrackMetadata metadata) {
+        recent.put(path, new Entry(modified, size, metadata));
+        synchronized (this) {
+            if (channel == null) return;
+            try {
+                byte[] record = encode(path, modified, size, metadata);
+                if (record.length > MAX_RECORD_BYTES) return;
+                ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+                buffer.putInt(record.length).put(record).flip();
+                while (buffer.hasRemaining()) {
+                    appendPosition += channel.write(buffer, appendPosition);
+                }
+            } catch (IOException e) {
+                System.err.println("No se pudo guardar en la caché de metadatos: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cierra el archivo (los datos ya escritos quedan guardados)
+     */
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private Entry lookup(String path) {
+        Entry entry = recent.get(path);
+        if (entry != null) return entry;
+
+        Integer offset = mappedIndex.get(path);
+        if (offset == null) return null;
+        Entry decoded = decode(mapped, offset, offset + mapped.getInt(offset - 4));
+        if (decoded != null) {
+            recent.put(path, decoded);
+        }
+        return decoded;
+    }
+
+    private void closeQuietly() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            // Ignorar al cerrar
+        }
+        channel = null;
+    }
+
+    // =============== FORMATO DEL REGISTRO ===============
+    // ruta, fecha, tamaño, tipo, duración, frecuencia, canales, bits, tasa, título, artista, álbum
+    // y, si se analizó, sonoridad y pico al final (los registros anteriores simplemente no los tienen)
+
+    /**
+     * Codifica un registro (sin el prefijo de longitud); también lo usa la lista binaria
+     */
+    static byte[] encode(String path, long modified, long size, TrackMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, path);
+        out.writeLong(modified);
+        out.writeLong(size);
+        writeString(out, metadata.getType());
+        out.writeLong(metadata.getDurationMicros());
+        out.writeInt(metadata.getSampleRate());
+        out.writeShort(metadata.getChannels());
+        out.writeShort(metadata.getBitsPerSample());
+        out.writeInt(metadata.getBitrate());
+        writeString(out, metadata.getTitle());
+        writeString(out, metadata.getArtist());
+        writeString(out, metadata.getAlbum());
+        if (metadata.hasLoudness()) {
+            out.writeFloat(metadata.getLoudness());
+            out.writeFloat(metadata.getPeak());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica el registro que ocupa [offset, end) (lectura absoluta: no mueve el buffer)
+     */
+    static Entry decode(ByteBuffer buffer, int offset, int end) {
+        try {
+            int pos = offset;
+            pos += stringLength(buffer, pos);
+            long modified = buffer.getLong(pos);
+            long size = buffer.getLong(pos + 8);
+            pos += 16;
+            String type = readString(buffer, pos);
+            pos += stringLength(buffer, pos);
+            long duration = buffer.getLong(pos);
+            int sampleRate = buffer.getInt(pos + 8);
+            int channels = buffer.getShort(pos + 12);
+            int bits = buffer.getShort(pos + 14);
+            int bitrate = buffer.getInt(pos + 16);
+            pos += 20;
+            String title = readString(buffer, pos);
+            pos += stringLength(buffer, pos);
+            String artist = readString(buffer, pos);
+            pos += stringLength(buffer, pos);
+            String album = readString(buffer, pos);
+            pos += stringLength(buffer, pos);
+            float loudness = Float.NaN;
+            float peak = Float.NaN;
+            if (pos + 8 <= end) {
+                loudness = buffer.getFloat(pos);
+                peak = buffer.getFloat(pos + 4);
+            }
+            TrackMetadata metadata = new TrackMetadata(type, duration, sampleRate, channels, bits, bitrate,
+                title, artist, album, loudness, peak);
+            return new Entry(modified, size, metadata);
+        } catch (IndexOutOfBoundsException e) {
+            return null; // Registro dañado
+        }
+    }
+
+    /**
+     * Texto UTF-8 con longitud de 2 bytes; 0xFFFF representa null
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(0xFFFF);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(utf8.length, 0xFFFE);
+        out.writeShort(length);
+        out.write(utf8, 0, length);
+    }
+
+    static String readString(ByteBuffer buffer, int pos) {
+        int length = buffer.getShort(pos) & 0xFFFF;
+        if (length == 0xFFFF) return null;
+        byte[] utf8 = new byte[length];
+        for (int i = 0; i < length; i++) {
+            utf8[i] = buffer.get(pos + 2 + i);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(ByteBuffer buffer, int pos) {
+        int length = buffer.getShort(pos) & 0xFFFF;
+        return 2 + (length == 0xFFFF ? 0 : length);
+    }
+}
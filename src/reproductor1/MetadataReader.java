@@ -0,0 +1,431 @@
+/*
+ * Reproductor de Música - Lectura de metadatos desde las cabeceras
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Extrae duración, formato y etiquetas leyendo solo cabeceras: los chunks
+ * fmt/COMM/LIST de WAV y AIFF, la cabecera de AU, y en MP3 la etiqueta ID3v2,
+ * la primera trama (con su cabecera Xing/Info o VBRI) y la etiqueta ID3v1.
+ * Los datos de audio nunca se leen ni se decodifican: son unos pocos KB por archivo.
+ */
+public final class MetadataReader {
+    private static final int MAX_CHUNKS = 64;
+    private static final int MAX_TEXT_BYTES = 1024;
+    private static final int SYNC_WINDOW = 64 * 1024;
+
+    private MetadataReader() {
+    }
+
+    /**
+     * Lee los metadatos del archivo; null si no es un formato reconocido
+     */
+    public static TrackMetadata read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            AudioContainer type = AudioContainer.identify(channel, file.getName());
+            if (type == null) {
+                return null;
+            }
+            switch (type) {
+                case WAV:
+                    return readWav(channel, fileSize);
+                case AIFF:
+                    return readAiff(channel, fileSize);
+                case AU:
+                    return readAu(channel, fileSize);
+                default:
+                    return readMp3(channel, fileSize);
+            }
+        }
+    }
+
+    // =============== WAV (RIFF) ===============
+
+    private static TrackMetadata readWav(FileChannel channel, long fileSize) throws IOException {
+        int channels = -1, sampleRate = -1, byteRate = -1, bits = -1;
+        long dataSize = -1;
+        String title = null, artist = null, album = null;
+
+        long pos = 12;
+        for (int i = 0; i < MAX_CHUNKS && pos + 8 <= fileSize; i++) {
+            ByteBuffer header = ByteBuffer.wrap(readAt(channel, pos, 8)).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.remaining() < 8) break;
+            String id = ascii(header.array(), 0, 4);
+            long size = header.getInt(4) & 0xFFFFFFFFL;
+            long body = pos + 8;
+
+            if (id.equals("fmt ")) {
+                ByteBuffer fmt = ByteBuffer.wrap(readAt(channel, body, 16)).order(ByteOrder.LITTLE_ENDIAN);
+                if (fmt.remaining() >= 16) {
+                    channels = fmt.getShort(2) & 0xFFFF;
+                    sampleRate = fmt.getInt(4);
+                    byteRate = fmt.getInt(8);
+                    bits = fmt.getShort(14) & 0xFFFF;
+                }
+            } else if (id.equals("data")) {
+                // Tamaño 0xFFFFFFFF o mayor que el archivo: grabación interrumpida o en streaming
+                dataSize = Math.min(size, fileSize - body);
+            } else if (id.equals("LIST")) {
+                byte[] list = readAt(channel, body, (int) Math.min(size, 64 * 1024));
+                if (list.length >= 4 && startsWith(list, 0, "INFO")) {
+                    int p = 4;
+                    while (p + 8 <= list.length) {
+                        String subId = ascii(list, p, 4);
+                        int subSize = ByteBuffer.wrap(list, p + 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+                        if (subSize < 0 || p + 8 + subSize > list.length) break;
+                        String value = text(list, p + 8, subSize, StandardCharsets.UTF_8);
+                        if (subId.equals("INAM")) title = value;
+                        else if (subId.equals("IART")) artist = value;
+                        else if (subId.equals("IPRD")) album = value;
+                        p += 8 + subSize + (subSize & 1);
+                    }
+                }
+            } else if (id.equalsIgnoreCase("id3 ")) {
+                String[] tags = readId3v2(channel, body);
+                if (tags != null) {
+                    title = first(title, tags[0]);
+                    artist = first(artist, tags[1]);
+                    album = first(album, tags[2]);
+                }
+            }
+            pos = body + size + (size & 1); // Los chunks se alinean a 2 bytes
+        }
+
+        long duration = (dataSize >= 0 && byteRate > 0) ? dataSize * 1_000_000L / byteRate : -1;
+        return new TrackMetadata("WAV", duration, sampleRate, channels, bits,
+            byteRate > 0 ? byteRate * 8 : -1, title, artist, album);
+    }
+
+    // =============== AIFF / AIFC ===============
+
+    private static TrackMetadata readAiff(FileChannel channel, long fileSize) throws IOException {
+        int channels = -1, bits = -1, sampleRate = -1;
+        long frames = -1;
+        String title = null, artist = null, album = null;
+
+        long pos = 12;
+        for (int i = 0; i < MAX_CHUNKS && pos + 8 <= fileSize; i++) {
+            byte[] header = readAt(channel, pos, 8);
+            if (header.length < 8) break;
+            String id = ascii(header, 0, 4);
+            long size = MpegFrameHeader.readInt(header, 4) & 0xFFFFFFFFL;
+            long body = pos + 8;
+
+            if (id.equals("COMM")) {
+                byte[] comm = readAt(channel, body, 18);
+                if (comm.length >= 18) {
+                    ByteBuffer b = ByteBuffer.wrap(comm);
+                    channels = b.getShort(0) & 0xFFFF;
+                    frames = b.getInt(2) & 0xFFFFFFFFL;
+                    bits = b.getShort(6) & 0xFFFF;
+                    sampleRate = (int) Math.round(extendedToDouble(comm, 8));
+                }
+            } else if (id.equals("NAME")) {
+                title = text(readAt(channel, body, (int) Math.min(size, MAX_TEXT_BYTES)), 0, -1, StandardCharsets.ISO_8859_1);
+            } else if (id.equals("AUTH")) {
+                artist = text(readAt(channel, body, (int) Math.min(size, MAX_TEXT_BYTES)), 0, -1, StandardCharsets.ISO_8859_1);
+            } else if (id.equals("ID3 ")) {
+                String[] tags = readId3v2(channel, body);
+                if (tags != null) {
+                    title = first(tags[0], title);
+                    artist = first(tags[1], artist);
+                    album = first(tags[2], album);
+                }
+            }
+            pos = body + size + (size & 1);
+        }
+
+        long duration = (frames >= 0 && sampleRate > 0) ? frames * 1_000_000L / sampleRate : -1;
+        int bitrate = (sampleRate > 0 && channels > 0 && bits > 0) ? sampleRate * channels * bits : -1;
+        return new TrackMetadata("AIFF", duration, sampleRate, channels, bits, bitrate, title, artist, album);
+    }
+
+    /**
+     * Número en coma flotante extendida de 80 bits (IEEE 754) que usa AIFF para la frecuencia
+     */
+    static double extendedToDouble(byte[] data, int offset) {
+        int exponent = ((data[offset] & 0x7F) << 8) | (data[offset + 1] & 0xFF);
+        long mantissa = ByteBuffer.wrap(data, offset + 2, 8).getLong();
+        if (exponent == 0 && mantissa == 0) return 0;
+        double value = (mantissa >>> 1) * Math.pow(2, exponent - 16383 - 62);
+        return (data[offset] & 0x80) != 0 ? -value : value;
+    }
+
+    // =============== AU (.snd) ===============
+
+    private static TrackMetadata readAu(FileChannel channel, long fileSize) throws IOException {
+        byte[] header = readAt(channel, 0, 24);
+        if (header.length < 24) return null;
+        ByteBuffer b = ByteBuffer.wrap(header);
+        long offset = b.getInt(4) & 0xFFFFFFFFL;
+        long dataSize = b.getInt(8) & 0xFFFFFFFFL;
+        int encoding = b.getInt(12);
+        int sampleRate = b.getInt(16);
+        int channels = b.getInt(20);
+
+        if (dataSize == 0xFFFFFFFFL || offset + dataSize > fileSize) {
+            dataSize = Math.max(0, fileSize - offset);
+        }
+
+        int bytesPerSample;
+        switch (encoding) {
+            case 1: case 2: case 27: bytesPerSample = 1; break; // µ-law, lineal 8, A-law
+            case 3: bytesPerSample = 2; break;
+            case 4: bytesPerSample = 3; break;
+            case 5: case 6: bytesPerSample = 4; break;
+            case 7: bytesPerSample = 8; break;
+            default: bytesPerSample = -1; break;
+        }
+
+        long duration = -1;
+        int bitrate = -1;
+        if (bytesPerSample > 0 && sampleRate > 0 && channels > 0) {
+            long bytesPerSecond = (long) sampleRate * channels * bytesPerSample;
+            duration = dataSize * 1_000_000L / bytesPerSecond;
+            bitrate = (int) (bytesPerSecond * 8);
+        }
+        return new TrackMetadata("AU", duration, sampleRate, channels,
+            bytesPerSample > 0 ? bytesPerSample * 8 : -1, bitrate, null, null, null);
+    }
+
+    // =============== MP3 ===============
+
+    private static TrackMetadata readMp3(FileChannel channel, long fileSize) throws IOException {
+        String title = null, artist = null, album = null;
+        long audioStart = 0;
+        long audioEnd = fileSize;
+
+        String[] tags = readId3v2(channel, 0);
+        if (tags != null) {
+            title = tags[0];
+            artist = tags[1];
+            album = tags[2];
+            audioStart = id3v2Length(channel, 0);
+        }
+
+        // Etiqueta ID3v1 en los últimos 128 bytes
+        if (fileSize >= 128) {
+            byte[] v1 = readAt(channel, fileSize - 128, 128);
+            if (v1.length == 128 && startsWith(v1, 0, "TAG")) {
+                audioEnd -= 128;
+                title = first(title, text(v1, 3, 30, StandardCharsets.ISO_8859_1));
+                artist = first(artist, text(v1, 33, 30, StandardCharsets.ISO_8859_1));
+                album = first(album, text(v1, 63, 30, StandardCharsets.ISO_8859_1));
+            }
+        }
+
+        Mp3Frame frame = findFirstFrame(channel, audioStart, audioEnd);
+        if (frame == null) {
+            return new TrackMetadata("MP3", -1, -1, -1, -1, -1, title, artist, album);
+        }
+        MpegFrameHeader header = frame.header;
+
+        long duration;
+        int bitrate;
+        long frames = readVbrFrameCount(channel, frame);
+        if (frames > 0) {
+            duration = frames * header.getSamplesPerFrame() * 1_000_000L / header.getSampleRate();
+            bitrate = duration > 0 ? (int) ((audioEnd - frame.position) * 8 * 1_000_000L / duration) : header.getBitrate();
+        } else {
+            // Tasa constante: la duración sale del tamaño de los datos
+            bitrate = header.getBitrate();
+            duration = (audioEnd - frame.position) * 8 * 1_000_000L / bitrate;
+        }
+        return new TrackMetadata("MP3", duration, header.getSampleRate(), header.getChannels(), -1,
+            bitrate, title, artist, album);
+    }
+
+    /**
+     * Primera trama MPEG y su posición en el archivo
+     */
+    static final class Mp3Frame {
+        final long position;
+        final MpegFrameHeader header;
+
+        Mp3Frame(long position, MpegFrameHeader header) {
+            this.position = position;
+            this.header = header;
+        }
+    }
+
+    /**
+     * Busca la primera cabecera válida confirmada por la cabecera de la trama siguiente
+     */
+    static Mp3Frame findFirstFrame(FileChannel channel, long from, long to) throws IOException {
+        byte[] window = readAt(channel, from, (int) Math.min(SYNC_WINDOW, Math.max(0, to - from)));
+        for (int i = 0; i + 4 <= window.length; i++) {
+            if ((window[i] & 0xFF) != 0xFF || (window[i + 1] & 0xE0) != 0xE0) continue;
+            MpegFrameHeader header = MpegFrameHeader.parse(MpegFrameHeader.readInt(window, i));
+            if (header == null) continue;
+
+            int next = i + header.getFrameLength();
+            if (next + 4 <= window.length) {
+                MpegFrameHeader following = MpegFrameHeader.parse(MpegFrameHeader.readInt(window, next));
+                if (following == null || following.getSampleRate() != header.getSampleRate()) continue;
+            }
+            return new Mp3Frame(from + i, header);
+        }
+        return null;
+    }
+
+    /**
+     * Número de tramas declarado por una cabecera Xing/Info o VBRI en la primera trama; -1 si no hay
+     */
+    private static long readVbrFrameCount(FileChannel channel, Mp3Frame frame) throws IOException {
+        long xing = frame.position + 4 + frame.header.getSideInfoLength();
+        byte[] data = readAt(channel, xing, 12);
+        if (data.length >= 12 && (startsWith(data, 0, "Xing") || startsWith(data, 0, "Info"))) {
+            int flags = MpegFrameHeader.readInt(data, 4);
+            if ((flags & 1) != 0) {
+                return MpegFrameHeader.readInt(data, 8) & 0xFFFFFFFFL;
+            }
+        }
+        byte[] vbri = readAt(channel, frame.position + 4 + 32, 18);
+        if (vbri.length >= 18 && startsWith(vbri, 0, "VBRI")) {
+            return MpegFrameHeader.readInt(vbri, 14) & 0xFFFFFFFFL;
+        }
+        return -1;
+    }
+
+    // =============== ID3v2 ===============
+
+    /**
+     * Tamaño total de la etiqueta ID3v2 que empieza en position (0 si no hay)
+     */
+    static long id3v2Length(FileChannel channel, long position) throws IOException {
+        byte[] header = readAt(channel, position, 10);
+        if (header.length < 10 || !startsWith(header, 0, "ID3")) return 0;
+        long size = syncsafe(header, 6) + 10;
+        if ((header[5] & 0x10) != 0) size += 10; // Pie de etiqueta (v2.4)
+        return size;
+    }
+
+    /**
+     * Título, artista y álbum de una etiqueta ID3v2.2/2.3/2.4; null si no hay etiqueta
+     */
+    private static String[] readId3v2(FileChannel channel, long position) throws IOException {
+        byte[] header = readAt(channel, position, 10);
+        if (header.length < 10 || !startsWith(header, 0, "ID3")) return null;
+
+        int major = header[3];
+        int flags = header[5];
+        long end = position + 10 + syncsafe(header, 6);
+        long pos = position + 10;
+
+        if ((flags & 0x40) != 0 && major >= 3) {
+            // Cabecera extendida: en v2.3 el tamaño no se cuenta a sí mismo, en v2.4 sí
+            byte[] ext = readAt(channel, pos, 4);
+            if (ext.length < 4) return null;
+            pos += major == 3 ? 4 + MpegFrameHeader.readInt(ext, 0) : syncsafe(ext, 0);
+        }
+
+        int headerLength = major == 2 ? 6 : 10;
+        String[] tags = new String[3];
+        while (pos + headerLength <= end && (tags[0] == null || tags[1] == null || tags[2] == null)) {
+            byte[] frameHeader = readAt(channel, pos, headerLength);
+            if (frameHeader.length < headerLength || frameHeader[0] == 0) break; // Relleno
+
+            String id;
+            long size;
+            if (major == 2) {
+                id = ascii(frameHeader, 0, 3);
+                size = ((frameHeader[3] & 0xFF) << 16) | ((frameHeader[4] & 0xFF) << 8) | (frameHeader[5] & 0xFF);
+            } else {
+                id = ascii(frameHeader, 0, 4);
+                size = major >= 4 ? syncsafe(frameHeader, 4) : MpegFrameHeader.readInt(frameHeader, 4) & 0xFFFFFFFFL;
+            }
+            if (size <= 0 || pos + headerLength + size > end) break;
+
+            int slot = -1;
+            if (id.equals("TIT2") || id.equals("TT2")) slot = 0;
+            else if (id.equals("TPE1") || id.equals("TP1")) slot = 1;
+            else if (id.equals("TALB") || id.equals("TAL")) slot = 2;
+            if (slot >= 0 && tags[slot] == null) {
+                tags[slot] = id3Text(readAt(channel, pos + headerLength, (int) Math.min(size, MAX_TEXT_BYTES)));
+            }
+            pos += headerLength + size;
+        }
+        return tags;
+    }
+
+    /**
+     * Texto de un frame ID3: el primer byte indica la codificación
+     */
+    private static String id3Text(byte[] body) {
+        if (body.length < 2) return null;
+        Charset charset;
+        switch (body[0]) {
+            case 1: charset = StandardCharsets.UTF_16; break;   // Con BOM
+            case 2: charset = StandardCharsets.UTF_16BE; break;
+            case 3: charset = StandardCharsets.UTF_8; break;
+            default: charset = StandardCharsets.ISO_8859_1; break;
+        }
+        return text(body, 1, body.length - 1, charset);
+    }
+
+    private static long syncsafe(byte[] data, int offset) {
+        return ((data[offset] & 0x7F) << 21) | ((data[offset + 1] & 0x7F) << 14)
+             | ((data[offset + 2] & 0x7F) << 7) | (data[offset + 3] & 0x7F);
+    }
+
+    // =============== AUXILIARES ===============
+
+    /**
+     * Lee hasta length bytes desde position (menos si el archivo termina antes)
+     */
+    static byte[] readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, length));
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) break;
+        }
+        if (buffer.position() == length) {
+            return buffer.array();
+        }
+        byte[] partial = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, partial, 0, partial.length);
+        return partial;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String ascii) {
+        if (offset + ascii.length() > data.length) return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            if (data[offset + i] != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] data, int offset, int length) {
+        return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Texto terminado en cero o relleno con espacios; null si queda vacío.
+     * Con length -1 se toma hasta el final del arreglo
+     */
+    private static String text(byte[] data, int offset, int length, Charset charset) {
+        if (length < 0) length = data.length - offset;
+        length = Math.min(length, data.length - offset);
+        if (length <= 0) return null;
+        String value = new String(data, offset, length, charset);
+        int zero = value.indexOf('\0');
+        if (zero >= 0) value = value.substring(0, zero);
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String first(String preferred, String fallback) {
+        return preferred != null ? preferred : fallback;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Reproductor de Música - Decodificador MP3 cargado bajo demanda
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import javax.sound.sampled.spi.AudioFileReader;
+import javax.sound.sampled.spi.FormatConversionProvider;
+
+/**
+ * Decodifica MP3 con mp3spi/JLayer. Las bibliotecas no se tocan al arrancar:
+ * se cargan la primera vez que se abre un MP3, del classpath si están en él o,
+ * si no, de los JAR de lib-mp3 (-Dreproductor.libMp3, el directorio de trabajo
+ * o junto al JAR de la aplicación).
+ * <p>
+ * El lector y el conversor se usan directamente, sin pasar por el registro de
+ * proveedores de AudioSystem, así funcionan también cargados en un cargador propio.
+ */
+final class Mp3Decoder implements AudioDecoder {
+    private static final String READER_CLASS = "javazoom.spi.mpeg.sampled.file.MpegAudioFileReader";
+    private static final String CONVERTER_CLASS = "javazoom.spi.mpeg.sampled.convert.MpegFormatConversionProvider";
+    private static final String LIB_DIR = "lib-mp3";
+
+    private boolean loaded = false;
+    private AudioFileReader reader;
+    private FormatConversionProvider converter;
+
+    @Override
+    public synchronized boolean isAvailable() {
+        if (!loaded) {
+            loaded = true;
+            load();
+        }
+        return reader != null;
+    }
+
+    @Override
+    public AudioSource open(File file) throws UnsupportedAudioFileException, IOException {
+        if (!isAvailable()) {
+            throw new UnsupportedAudioFileException("Bibliotecas MP3 no disponibles");
+        }
+        return StreamAudioSource.open(file, reader, converter);
+    }
+
+    private void load() {
+        ClassLoader loader = Mp3Decoder.class.getClassLoader();
+        if (!present(loader)) {
+            URL[] jars = findJars();
+            loader = jars.length > 0 ? new URLClassLoader(jars, loader) : null;
+        }
+        if (loader == null || !present(loader)) {
+            System.out.println("⚠️ Soporte MP3 no disponible - faltan bibliotecas");
+            return;
+        }
+        try {
+            reader = (AudioFileReader) Class.forName(READER_CLASS, true, loader).getDeclaredConstructor().newInstance();
+            converter = (FormatConversionProvider) Class.forName(CONVERTER_CLASS, true, loader).getDeclaredConstructor().newInstance();
+            System.out.println("✅ Soporte MP3 detectado");
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            reader = null;
+            converter = null;
+            System.out.println("⚠️ Soporte MP3 no disponible - " + e);
+        }
+    }
+
+    private static boolean present(ClassLoader loader) {
+        try {
+            Class.forName(READER_CLASS, false, loader);
+            Class.forName("javazoom.jl.decoder.Decoder", false, loader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * JAR del primer directorio lib-mp3 que exista
+     */
+    private static URL[] findJars() {
+        for (File directory : candidateDirectories()) {
+            File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".jar"));
+            if (files == null || files.length == 0) continue;
+            List<URL> urls = new ArrayList<>();
+            for (File jar : files) {
+                try {
+                    urls.add(jar.toURI().toURL());
+                } catch (MalformedURLException e) {
+                    // Ruta no representable como URL: se omite
+                }
+            }
+            return urls.toArray(new URL[0]);
+        }
+        return new URL[0];
+    }
+
+    private static List<File> candidateDirectories() {
+        List<File> directories = new ArrayList<>();
+        String configured = System.getProperty("reproductor.libMp3");
+        if (configured != null) {
+            directories.add(new File(configured));
+        }
+        directories.add(new File(LIB_DIR));
+        try {
+            // Junto al JAR (dist/lib-mp3) o en el directorio del proyecto (dist/../lib-mp3)
+            CodeSource code = Mp3Decoder.class.getProtectionDomain().getCodeSource();
+            if (code != null) {
+                File location = new File(code.getLocation().toURI()).getAbsoluteFile().getParentFile();
+                if (location != null) {
+                    directories.add(new File(location, LIB_DIR));
+                    if (location.getParentFile() != null) {
+                        directories.add(new File(location.getParentFile(), LIB_DIR));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Sin ubicación conocida: solo las rutas anteriores
+        }
+        return directories;
+    }
+}
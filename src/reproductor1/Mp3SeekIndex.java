@@ -0,0 +1,501 @@
+/*
+ * Reproductor de Música - Índice de posiciones para saltar dentro de un MP3
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice de búsqueda de un MP3 para saltar sin decodificar el archivo completo.
+ * <ul>
+ * <li>Exacto: recorre solo las cabeceras de trama y guarda el desplazamiento de
+ * una de cada {@link #STEP} tramas. Al saltar se ubica la trama exacta y se
+ * indican las muestras a descartar para caer en el microsegundo pedido.</li>
+ * <li>Aproximado: la tabla TOC de Xing o VBRI, o sin tabla la tasa de bits de la
+ * primera trama; disponible sin recorrer nada, se usa mientras el índice exacto
+ * se construye en segundo plano.</li>
+ * </ul>
+ * Los índices se guardan por archivo (ruta, fecha y tamaño) en una caché LRU.
+ * Solo se construyen para pistas que se reproducen, y la última pedida pasa
+ * delante de las que esperan; saltar nunca espera a que termine un recorrido.
+ */
+public final class Mp3SeekIndex {
+    // Una entrada cada 32 tramas (~0.8 s a 44.1 kHz): ~9000 entradas para 2 horas
+    static final int STEP = 32;
+    // Tramas previas que se decodifican y descartan para llenar el depósito de bits de capa III
+    private static final int PREROLL_FRAMES = 2;
+    private static final int RESYNC_WINDOW = 16 * 1024;
+    private static final int MAX_CACHED = 16;
+
+    private static final Map<String, Mp3SeekIndex> cache = new LinkedHashMap<String, Mp3SeekIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Mp3SeekIndex> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private static final Map<String, ScanTask> pending = new LinkedHashMap<>();
+    // Cola LIFO: el recorrido de la última pista pedida (la que suena) va primero
+    private static final LinkedBlockingDeque<Runnable> scanQueue = new LinkedBlockingDeque<Runnable>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable task) {
+            return offerFirst(task);
+        }
+    };
+    private static final ThreadPoolExecutor scanExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        scanQueue, r -> {
+            Thread thread = new Thread(r, "Reproductor-IndiceMP3");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+    private final Path path;
+    private final long modified;
+    private final long size;
+    private final boolean exact;
+    private final int sampleRate;
+    private final int samplesPerFrame;
+    private final long firstFrame;
+    private final long audioEnd;
+    // Exacto: offsets[k] = posición de la trama k * STEP; frameCount = tramas totales
+    // Aproximado: pares (times[k] en µs, offsets[k]) de la tabla TOC
+    private final long[] offsets;
+    private final long[] times;
+    private final long frameCount;
+    private final long durationMicros;
+
+    private Mp3SeekIndex(File file, boolean exact, int sampleRate, int samplesPerFrame, long firstFrame,
+                         long audioEnd, long[] offsets, long[] times, long frameCount, long durationMicros) {
+        this.path = file.toPath();
+        this.modified = file.lastModified();
+        this.size = file.length();
+        this.exact = exact;
+        this.sampleRate = sampleRate;
+        this.samplesPerFrame = samplesPerFrame;
+        this.firstFrame = firstFrame;
+        this.audioEnd = audioEnd;
+        this.offsets = offsets;
+        this.times = times;
+        this.frameCount = frameCount;
+        this.durationMicros = durationMicros;
+    }
+
+    /**
+     * Punto desde el que decodificar para llegar a una posición
+     */
+    public static final class SeekPoint {
+        private final long offset;
+        private final long discardFrames;
+        private final long micros;
+
+        SeekPoint(long offset, long discardFrames, long micros) {
+            this.offset = offset;
+            this.discardFrames = discardFrames;
+            this.micros = micros;
+        }
+
+        /**
+         * Posición en el archivo de la trama desde la que decodificar
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Frames PCM decodificados a descartar antes de la posición pedida
+         */
+        public long getDiscardFrames() {
+            return discardFrames;
+        }
+
+        /**
+         * Posición real en que quedará la reproducción
+         */
+        public long getMicros() {
+            return micros;
+        }
+    }
+
+    // =============== CACHÉ POR ARCHIVO ===============
+
+    /**
+     * Recorrido pendiente de un archivo
+     */
+    private static final class ScanTask implements Runnable {
+        private final File file;
+        private final String key;
+
+        ScanTask(File file, String key) {
+            this.file = file;
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            scanAndStore(file, key);
+        }
+    }
+
+    /**
+     * Empieza a construir en segundo plano el índice exacto si aún no existe. Se llama
+     * al abrir una pista para reproducirla: su recorrido pasa delante de los que esperan
+     */
+    public static void prefetch(File file) {
+        String key = file.getAbsolutePath();
+        ScanTask task;
+        synchronized (cache) {
+            Mp3SeekIndex cached = cache.get(key);
+            if (cached != null && cached.isCurrent(file) && cached.exact) {
+                return;
+            }
+            task = pending.get(key);
+            if (task != null) {
+                if (scanQueue.remove(task)) {
+                    scanQueue.offerFirst(task); // Aún en espera: adelantarlo
+                }
+                return;
+            }
+            task = new ScanTask(file, key);
+            pending.put(key, task);
+        }
+        scanExecutor.execute(task);
+    }
+
+    /**
+     * Mejor índice disponible ahora, sin esperar: el exacto si ya está; si no, mientras
+     * se construye, la tabla TOC del archivo o una estimación por su tasa de bits.
+     * null si no es un MP3 válido
+     */
+    public static Mp3SeekIndex forFile(File file) {
+        Mp3SeekIndex cached = cached(file);
+        if (cached != null) {
+            return cached;
+        }
+        prefetch(file);
+        try {
+            Mp3SeekIndex toc = fromToc(file);
+            return toc != null ? toc : fromBitrate(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Índice exacto ya construido para el archivo, sin esperar ni leer nada; null si no hay
+     */
+    public static Mp3SeekIndex cached(File file) {
+        synchronized (cache) {
+            Mp3SeekIndex cached = cache.get(file.getAbsolutePath());
+            return cached != null && cached.isCurrent(file) && cached.exact ? cached : null;
+        }
+    }
+
+    private static Mp3SeekIndex scanAndStore(File file, String key) {
+        Mp3SeekIndex index = null;
+        try {
+            index = scan(file);
+        } catch (IOException e) {
+            System.err.println("No se pudo indexar " + file.getName() + ": " + e.getMessage());
+        }
+        synchronized (cache) {
+            if (index != null) {
+                cache.put(key, index);
+            }
+            pending.remove(key);
+        }
+        return index;
+    }
+
+    private boolean isCurrent(File file) {
+        return file.lastModified() == modified && file.length() == size;
+    }
+
+    // =============== CONSTRUCCIÓN ===============
+
+    /**
+     * Recorre las cabeceras de todas las tramas (sin decodificar) y anota una de cada STEP
+     */
+    public static Mp3SeekIndex scan(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long audioStart = MetadataReader.id3v2Length(channel, 0);
+            long audioEnd = fileSize;
+            byte[] tail = MetadataReader.readAt(channel, Math.max(0, fileSize - 128), 128);
+            if (tail.length == 128 && tail[0] == 'T' && tail[1] == 'A' && tail[2] == 'G') {
+                audioEnd -= 128;
+            }
+
+            MetadataReader.Mp3Frame first = MetadataReader.findFirstFrame(channel, audioStart, audioEnd);
+            if (first == null) return null;
+            if (isVbrHeaderFrame(channel, first)) {
+                // La trama Xing/VBRI no contiene audio: la primera muestra está en la siguiente
+                long next = first.position + first.header.getFrameLength();
+                MetadataReader.Mp3Frame audio = MetadataReader.findFirstFrame(channel, next, Math.min(audioEnd, next + RESYNC_WINDOW));
+                if (audio == null) return null;
+                first = audio;
+            }
+            int sampleRate = first.header.getSampleRate();
+            int samplesPerFrame = first.header.getSamplesPerFrame();
+
+            long[] offsets = new long[1024];
+            long frames = 0;
+            long pos = first.position;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            long bufferStart = -1;
+            int bufferLength = 0;
+
+            while (pos + 4 <= audioEnd) {
+                // Leer por bloques: las cabeceras están a ~400-1400 bytes unas de otras
+                if (bufferStart < 0 || pos < bufferStart || pos + 4 > bufferStart + bufferLength) {
+                    buffer.clear();
+                    bufferLength = 0;
+                    while (buffer.hasRemaining()) {
+                        int read = channel.read(buffer, pos + buffer.position());
+                        if (read < 0) break;
+                        bufferLength += read;
+                    }
+                    bufferStart = pos;
+                    if (bufferLength < 4) break;
+                }
+
+                MpegFrameHeader header = MpegFrameHeader.parse(buffer.getInt((int) (pos - bufferStart)));
+                if (header == null || header.getSampleRate() != sampleRate) {
+                    // Datos basura entre tramas: buscar la siguiente cabecera
+                    MetadataReader.Mp3Frame next = MetadataReader.findFirstFrame(channel, pos + 1,
+                        Math.min(audioEnd, pos + 1 + RESYNC_WINDOW));
+                    if (next == null) break;
+                    pos = next.position;
+                    continue;
+                }
+
+                if (frames % STEP == 0) {
+                    int slot = (int) (frames / STEP);
+                    if (slot == offsets.length) {
+                        long[] grown = new long[offsets.length * 2];
+                        System.arraycopy(offsets, 0, grown, 0, offsets.length);
+                        offsets = grown;
+                    }
+                    offsets[slot] = pos;
+                }
+                frames++;
+                pos += header.getFrameLength();
+            }
+
+            int entries = (int) ((frames + STEP - 1) / STEP);
+            long[] trimmed = new long[entries];
+            System.arraycopy(offsets, 0, trimmed, 0, entries);
+            long duration = frames * samplesPerFrame * 1_000_000L / sampleRate;
+            return new Mp3SeekIndex(file, true, sampleRate, samplesPerFrame, first.position, audioEnd,
+                trimmed, null, frames, duration);
+        }
+    }
+
+    /**
+     * Índice aproximado como si el archivo fuera CBR, con la tasa de bits de la primera
+     * trama; null si no hay tramas. En VBR el salto cae cerca y se informa el instante estimado
+     */
+    public static Mp3SeekIndex fromBitrate(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long audioStart = MetadataReader.id3v2Length(channel, 0);
+            MetadataReader.Mp3Frame first = MetadataReader.findFirstFrame(channel, audioStart, fileSize);
+            if (first == null) return null;
+            MpegFrameHeader header = first.header;
+            long bytes = fileSize - first.position;
+            long duration = bytes * 8 * 1_000_000L / header.getBitrate();
+            long frames = duration * header.getSampleRate() / 1_000_000L / header.getSamplesPerFrame();
+            return new Mp3SeekIndex(file, false, header.getSampleRate(), header.getSamplesPerFrame(),
+                first.position, fileSize, new long[] {first.position, fileSize}, new long[] {0, duration},
+                Math.max(1, frames), duration);
+        }
+    }
+
+    /**
+     * Índice aproximado desde la tabla TOC de la cabecera Xing o VBRI; null si no hay tabla
+     */
+    public static Mp3SeekIndex fromToc(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long audioStart = MetadataReader.id3v2Length(channel, 0);
+            MetadataReader.Mp3Frame first = MetadataReader.findFirstFrame(channel, audioStart, fileSize);
+            if (first == null) return null;
+            MpegFrameHeader header = first.header;
+            int sampleRate = header.getSampleRate();
+            audioStart = first.position + header.getFrameLength(); // Tras la trama de la tabla
+            int samplesPerFrame = header.getSamplesPerFrame();
+
+            // Xing/Info: flags, [tramas], [bytes], [TOC de 100 entradas en 1/256 del tamaño]
+            byte[] xing = MetadataReader.readAt(channel, first.position + 4 + header.getSideInfoLength(), 120);
+            if (xing.length >= 8 && (startsWith(xing, "Xing") || startsWith(xing, "Info"))) {
+                int flags = MpegFrameHeader.readInt(xing, 4);
+                int p = 8;
+                long frames = -1;
+                long bytes = fileSize - first.position;
+                if ((flags & 1) != 0) {
+                    frames = MpegFrameHeader.readInt(xing, p) & 0xFFFFFFFFL;
+                    p += 4;
+                }
+                if ((flags & 2) != 0) {
+                    bytes = MpegFrameHeader.readInt(xing, p) & 0xFFFFFFFFL;
+                    p += 4;
+                }
+                if ((flags & 4) == 0 || frames <= 0 || p + 100 > xing.length) return null;
+
+                long duration = frames * samplesPerFrame * 1_000_000L / sampleRate;
+                long[] times = new long[100];
+                long[] offsets = new long[100];
+                for (int i = 0; i < 100; i++) {
+                    times[i] = duration * i / 100;
+                    offsets[i] = first.position + (xing[p + i] & 0xFF) * bytes / 256;
+                }
+                return new Mp3SeekIndex(file, false, sampleRate, samplesPerFrame, audioStart, fileSize,
+                    offsets, times, frames, duration);
+            }
+
+            // VBRI: versión, retardo, calidad, bytes, tramas, entradas, escala, tamaño de entrada, tramas por entrada
+            byte[] vbri = MetadataReader.readAt(channel, first.position + 4 + 32, 26);
+            if (vbri.length == 26 && startsWith(vbri, "VBRI")) {
+                ByteBuffer b = ByteBuffer.wrap(vbri);
+                long frames = b.getInt(14) & 0xFFFFFFFFL;
+                int entries = b.getShort(18) & 0xFFFF;
+                int scale = b.getShort(20) & 0xFFFF;
+                int entrySize = b.getShort(22) & 0xFFFF;
+                int framesPerEntry = b.getShort(24) & 0xFFFF;
+                if (frames <= 0 || entries == 0 || entrySize < 1 || entrySize > 4 || framesPerEntry == 0) return null;
+
+                byte[] table = MetadataReader.readAt(channel, first.position + 4 + 32 + 26, entries * entrySize);
+                if (table.length < entries * entrySize) return null;
+                long duration = frames * samplesPerFrame * 1_000_000L / sampleRate;
+                long[] times = new long[entries + 1];
+                long[] offsets = new long[entries + 1];
+                long offset = first.position;
+                for (int i = 0; i <= entries; i++) {
+                    times[i] = Math.min(duration, (long) i * framesPerEntry * samplesPerFrame * 1_000_000L / sampleRate);
+                    offsets[i] = offset;
+                    if (i < entries) {
+                        long value = 0;
+                        for (int j = 0; j < entrySize; j++) {
+                            value = (value << 8) | (table[i * entrySize + j] & 0xFF);
+                        }
+                        offset += value * scale;
+                    }
+                }
+                return new Mp3SeekIndex(file, false, sampleRate, samplesPerFrame, audioStart, fileSize,
+                    offsets, times, frames, duration);
+            }
+            return null;
+        }
+    }
+
+    // =============== BÚSQUEDA ===============
+
+    /**
+     * Calcula desde dónde decodificar para llegar a micros
+     */
+    public SeekPoint locate(long micros) throws IOException {
+        if (micros <= 0) {
+            return new SeekPoint(firstFrame, 0, 0);
+        }
+        return exact ? locateExact(micros) : locateApproximate(micros);
+    }
+
+    private SeekPoint locateExact(long micros) throws IOException {
+        long targetSample = micros * sampleRate / 1_000_000L;
+        long targetFrame = Math.min(targetSample / samplesPerFrame, Math.max(0, frameCount - 1));
+        long startFrame = Math.max(0, targetFrame - PREROLL_FRAMES);
+
+        // Entrada del índice y luego trama a trama (a lo sumo STEP cabeceras)
+        int entry = (int) (startFrame / STEP);
+        long pos = offsets[entry];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (long frame = (long) entry * STEP; frame < startFrame; frame++) {
+                MpegFrameHeader header = MpegFrameHeader.parse(MpegFrameHeader.readInt(MetadataReader.readAt(channel, pos, 4), 0));
+                if (header == null) break;
+                pos += header.getFrameLength();
+            }
+        }
+        long reached = Math.min(targetSample, frameCount * samplesPerFrame);
+        return new SeekPoint(pos, reached - startFrame * samplesPerFrame, reached * 1_000_000L / sampleRate);
+    }
+
+    private SeekPoint locateApproximate(long micros) throws IOException {
+        int k = 0;
+        while (k + 1 < times.length && times[k + 1] <= micros) {
+            k++;
+        }
+        long offset = offsets[k];
+        if (k + 1 < times.length && times[k + 1] > times[k]) {
+            // Interpolación lineal entre dos puntos de la tabla
+            offset += (offsets[k + 1] - offsets[k]) * (micros - times[k]) / (times[k + 1] - times[k]);
+        }
+
+        // Caer en una cabecera de trama real (nunca en la trama de la tabla)
+        offset = Math.max(offset, firstFrame);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MetadataReader.Mp3Frame frame = MetadataReader.findFirstFrame(channel, offset, Math.min(audioEnd, offset + RESYNC_WINDOW));
+            if (frame != null) {
+                offset = frame.position;
+            }
+        }
+        return new SeekPoint(offset, 0, timeAt(offset));
+    }
+
+    /**
+     * Instante estimado de la trama que empieza en offset: interpolación inversa en la
+     * tabla, redondeada al inicio de una trama. Es donde de verdad queda la reproducción
+     * tras resincronizar, no el instante pedido
+     */
+    private long timeAt(long offset) {
+        int k = 0;
+        while (k + 1 < offsets.length && offsets[k + 1] <= offset) {
+            k++;
+        }
+        long micros = times[k];
+        if (k + 1 < offsets.length && offsets[k + 1] > offsets[k]) {
+            micros += (times[k + 1] - times[k]) * (offset - offsets[k]) / (offsets[k + 1] - offsets[k]);
+        }
+        long frame = Math.round(micros / 1_000_000.0 * sampleRate / samplesPerFrame);
+        return Math.min(durationMicros, frame * samplesPerFrame * 1_000_000L / sampleRate);
+    }
+
+    // =============== CONSULTAS ===============
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    private static boolean isVbrHeaderFrame(FileChannel channel, MetadataReader.Mp3Frame frame) throws IOException {
+        byte[] xing = MetadataReader.readAt(channel, frame.position + 4 + frame.header.getSideInfoLength(), 4);
+        if (xing.length == 4 && (startsWith(xing, "Xing") || startsWith(xing, "Info"))) return true;
+        byte[] vbri = MetadataReader.readAt(channel, frame.position + 4 + 32, 4);
+        return vbri.length == 4 && startsWith(vbri, "VBRI");
+    }
+
+    private static boolean startsWith(byte[] data, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (data[i] != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+}
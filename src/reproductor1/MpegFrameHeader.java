@@ -0,0 +1,137 @@
+/*
+ * Reproductor de Música - Cabecera de trama MPEG audio
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Interpreta la cabecera de 4 bytes de una trama MPEG-1/2/2.5 capas I, II y III.
+ * Solo lee los campos necesarios para calcular duración, formato y tamaño de trama;
+ * no decodifica audio.
+ */
+public final class MpegFrameHeader {
+    public static final int MPEG_1 = 1;
+    public static final int MPEG_2 = 2;
+    public static final int MPEG_2_5 = 25;
+
+    // Tasas de bits en kbps: [MPEG-1 capa I, II, III, MPEG-2/2.5 capa I, II/III][índice]
+    private static final int[][] BITRATES = {
+        {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+        {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+        {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+        {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+
+    private static final int[][] SAMPLE_RATES = {
+        {44100, 48000, 32000}, // MPEG-1
+        {22050, 24000, 16000}, // MPEG-2
+        {11025, 12000, 8000}   // MPEG-2.5
+    };
+
+    private final int version;
+    private final int layer;
+    private final int bitrate;      // bits por segundo
+    private final int sampleRate;
+    private final int channels;
+    private final int padding;
+
+    private MpegFrameHeader(int version, int layer, int bitrate, int sampleRate, int channels, int padding) {
+        this.version = version;
+        this.layer = layer;
+        this.bitrate = bitrate;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.padding = padding;
+    }
+
+    /**
+     * Interpreta los 4 bytes (big-endian) de una cabecera; null si no es una cabecera válida
+     * (sin sincronía, valores reservados o tasa de bits libre)
+     */
+    public static MpegFrameHeader parse(int header) {
+        if ((header >>> 21) != 0x7FF) return null;
+
+        int versionBits = (header >>> 19) & 3;
+        int layerBits = (header >>> 17) & 3;
+        int bitrateIndex = (header >>> 12) & 0xF;
+        int sampleRateIndex = (header >>> 10) & 3;
+        if (versionBits == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return null;
+        }
+
+        int version = versionBits == 3 ? MPEG_1 : (versionBits == 2 ? MPEG_2 : MPEG_2_5);
+        int layer = 4 - layerBits;
+        int table;
+        if (version == MPEG_1) {
+            table = layer - 1;
+        } else {
+            table = layer == 1 ? 3 : 4;
+        }
+        int rates = version == MPEG_1 ? 0 : (version == MPEG_2 ? 1 : 2);
+
+        int bitrate = BITRATES[table][bitrateIndex] * 1000;
+        int sampleRate = SAMPLE_RATES[rates][sampleRateIndex];
+        int channels = ((header >>> 6) & 3) == 3 ? 1 : 2;
+        int padding = (header >>> 9) & 1;
+        return new MpegFrameHeader(version, layer, bitrate, sampleRate, channels, padding);
+    }
+
+    /**
+     * Lee una cabecera big-endian desde el arreglo
+     */
+    public static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+             | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getLayer() {
+        return layer;
+    }
+
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Muestras por canal que contiene cada trama
+     */
+    public int getSamplesPerFrame() {
+        if (layer == 1) return 384;
+        if (layer == 2 || version == MPEG_1) return 1152;
+        return 576;
+    }
+
+    /**
+     * Tamaño total de la trama en bytes, incluida la cabecera
+     */
+    public int getFrameLength() {
+        if (layer == 1) {
+            return (12 * bitrate / sampleRate + padding) * 4;
+        }
+        return getSamplesPerFrame() / 8 * bitrate / sampleRate + padding;
+    }
+
+    /**
+     * Bytes de información lateral de capa III tras la cabecera; allí empieza
+     * la cabecera Xing/Info de los archivos VBR
+     */
+    public int getSideInfoLength() {
+        if (version == MPEG_1) {
+            return channels == 1 ? 17 : 32;
+        }
+        return channels == 1 ? 9 : 17;
+    }
+}
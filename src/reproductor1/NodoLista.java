@@ -10,6 +10,11 @@ import javax.swing.*;
 import java.io.File;
 import javax.sound.sampled.*;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Clase de utilidades para manejo de listas de reproducción
@@ -114,15 +119,59 @@ public class NodoLista {
         return null;
     }
     
+    /**
+     * Abre un selector de carpetas para importar música en bloque
+     */
+    public static File mostrarSelectorCarpeta() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Seleccionar carpeta de música");
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        
+        File musicFolder = new File(System.getProperty("user.home"), "Music");
+        if (musicFolder.exists()) {
+            fileChooser.setCurrentDirectory(musicFolder);
+        } else {
+            fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+        }
+        
+        int result = fileChooser.showOpenDialog(null);
+        if (result == JFileChooser.APPROVE_OPTION) {
+            return fileChooser.getSelectedFile();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Selector para abrir o guardar listas (.rpl, .m3u, .m3u8, .pls)
+     */
+    public static File mostrarSelectorLista(boolean guardar) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(guardar ? "Exportar lista de reproducción" : "Importar lista de reproducción");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+            "Listas de reproducción (*.RPL, *.M3U, *.M3U8, *.PLS)", "rpl", "m3u", "m3u8", "pls"));
+        
+        int result = guardar ? fileChooser.showSaveDialog(null) : fileChooser.showOpenDialog(null);
+        if (result != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        File selected = fileChooser.getSelectedFile();
+        if (guardar && !selected.getName().contains(".")) {
+            selected = new File(selected.getParentFile(), selected.getName() + PlaylistIO.NATIVE_EXTENSION);
+        }
+        return selected;
+    }
+    
     /**
      * Inserta un elemento al inicio de la lista usando el explorador nativo de Windows
+     * (admite LinkedList o Playlist)
      */
-    public static LinkedList<URL> insercionCabecera(LinkedList<URL> lista) {
+    public static <L extends List<URL>> L insercionCabecera(L lista) {
         try {
             File selectedFile = mostrarExploradorWindows();
             if (selectedFile != null) {
                 String rutaFormateada = cambiarRutaFormatoJMF(selectedFile.getAbsolutePath());
-                lista.addFirst(new URL(rutaFormateada));
+                lista.add(0, new URL(rutaFormateada));
                 JOptionPane.showMessageDialog(null, "Archivo agregado al inicio de la lista: " + selectedFile.getName());
             }
         } catch (Exception e) {
@@ -135,12 +184,12 @@ public class NodoLista {
     /**
      * Inserta un elemento al final de la lista usando el explorador nativo de Windows
      */
-    public static LinkedList<URL> insercionCima(LinkedList<URL> lista) {
+    public static <L extends List<URL>> L insercionCima(L lista) {
         try {
             File selectedFile = mostrarExploradorWindows();
             if (selectedFile != null) {
                 String rutaFormateada = cambiarRutaFormatoJMF(selectedFile.getAbsolutePath());
-                lista.addLast(new URL(rutaFormateada));
+                lista.add(new URL(rutaFormateada));
                 JOptionPane.showMessageDialog(null, "Archivo agregado al final de la lista: " + selectedFile.getName());
             }
         } catch (Exception e) {
@@ -153,7 +202,7 @@ public class NodoLista {
     /**
      * Inserta un elemento en una posición específica de la lista usando el explorador nativo de Windows
      */
-    public static LinkedList<URL> insercionPorPosicion(LinkedList<URL> lista) {
+    public static <L extends List<URL>> L insercionPorPosicion(L lista) {
         try {
             String input = JOptionPane.showInputDialog(
                 "Número de elementos en la lista: " + lista.size() + "\n" +
@@ -191,14 +240,15 @@ public class NodoLista {
      */
     public static String cambiarRutaFormatoJMF(String ruta) {
         ruta = ruta.replace("\\", "/");
-        ruta = "file:/" + ruta;
+        // Las rutas absolutas de Unix ya empiezan con "/" (si no, "/tmp" quedaría como host)
+        ruta = (ruta.startsWith("/") ? "file:" : "file:/") + ruta;
         return ruta;
     }
     
     /**
      * Reproduce una lista - método original actualizado con nueva funcionalidad
      */
-    public static Object reproducirLista(JFrame ventana, Object reproductor, LinkedList<URL> lista) {
+    public static Object reproducirLista(JFrame ventana, Object reproductor, List<URL> lista) {
         if (lista == null) {
             JOptionPane.showMessageDialog(null,"Hey...se debe crear primero la lista..");
         } else {
@@ -237,24 +287,18 @@ public class NodoLista {
     }     
     
     /**
-     * Llena una JList con los elementos de una LinkedList
+     * Llena una JList con los elementos de una lista (LinkedList o Playlist)
      */
-    public static void LlenarJlistConLista(JList<String> elementos, LinkedList<URL> lista) {
+    public static void LlenarJlistConLista(JList<String> elementos, List<URL> lista) {
         if(lista != null) {   
-            DefaultListModel<String> modelo = new DefaultListModel<>();
-            elementos.setModel(modelo);
-            modelo.removeAllElements();
-            for(int i = 0; i < lista.size(); i++) {
-                String fileName = getFileNameFromURL(lista.get(i));
-                modelo.addElement((i + 1) + ". " + fileName);
-            }
+            updatePlaylistDisplay(elementos, lista);
         }
     }
     
     /**
      * Verifica si una lista está vacía
      */
-    public static void MirarSiListaVacia(LinkedList<URL> laLista) {
+    public static void MirarSiListaVacia(List<URL> laLista) {
         if (laLista == null)
             JOptionPane.showMessageDialog(null, "Flaco. La lista no estaba creada");
         else if (laLista.isEmpty())
@@ -265,42 +309,129 @@ public class NodoLista {
     
     // =============== MÉTODOS MODERNOS AGREGADOS ===============
     
-    // Variables estáticas para el reproductor de audio
-    private static Clip currentClip = null;
-    private static boolean isPlaying = false;
+    // Reproductor de la aplicación: su hilo de audio ejecuta en orden las órdenes que abren,
+    // detienen o reposicionan audio, para que la interfaz nunca se bloquee esperando al disco.
+    // Se crea con la primera orden de audio, no al arrancar
+    private static class PlayerHolder {
+        static final PlaybackController PLAYER = crearReproductor();
+    }
+    private static volatile boolean reproductorCreado = false;
+    
+    // Oyentes y ajustes recibidos antes de crear el reproductor; se le pasan al crearlo
+    private static final List<PlaybackListener> oyentes = new java.util.concurrent.CopyOnWriteArrayList<>();
+    private static volatile float volumen = 1f;
+    private static volatile long crossfadeMicros = 0;
     
-    // Variables para control de audio mejorado
-    private static long pausedPosition = 0;
+    // Posición de la pista para la interfaz (-Dreproductor.posicionMs, por defecto 50 ms)
+    private static final PositionPublisher posicion = new PositionPublisher("Reproductor-Posicion",
+        () -> getCurrentTime() * 1000, () -> getTotalTime() * 1000);
     
-    // Variables para soporte MP3 (cuando esté disponible)
-    private static boolean mp3Available = false;
+    // Hilo de fondo que lee metadatos de las cabeceras (nunca decodifica audio)
+    private static final ExecutorService metadataExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Reproductor-Metadatos");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // La caché en disco se abre al primer uso
+    private static class MetadataHolder {
+        static final MetadataCache CACHE = MetadataCache.openDefault();
+    }
+    
+    // Análisis de sonoridad en segundo plano; con audio sonando trabaja un solo hilo
+    private static class LoudnessHolder {
+        static final LoudnessScanner SCANNER = new LoudnessScanner(NodoLista::estaReproduciendo);
+    }
+    
+    // Nivel de referencia de ReplayGain 2.0 y límites de la corrección automática
+    private static final float TARGET_LOUDNESS_LUFS = -18f;
+    private static final float MAX_BOOST_DB = 12f;
+    private static final float MAX_CUT_DB = -24f;
+    private static volatile boolean normalizarVolumen = true;
+    
+    // Formato fijo de salida (-Dreproductor.salidaHz, 0 = el de cada archivo, y -Dreproductor.salidaCanales)
+    private static volatile AudioFormat formatoSalida = formatoSalidaInicial();
+    
+    // Decodificadores por tipo de archivo; el de MP3 carga sus bibliotecas con el primer MP3
+    private static class DecoderHolder {
+        static final DecoderRegistry REGISTRY = crearRegistroDecodificadores();
+    }
     
-    // Verificar disponibilidad de MP3 al cargar la clase
     static {
-        checkMP3Support();
+        long posicionMs = Long.getLong("reproductor.posicionMs", PositionPublisher.DEFAULT_PERIOD_MS);
+        if (posicionMs > 0) {
+            posicion.setPeriodMillis(posicionMs);
+        }
+        // -Dreproductor.telemetria=true activa las métricas desde el arranque
+        if (Boolean.getBoolean("reproductor.telemetria")) {
+            String archivo = System.getProperty("reproductor.telemetria.archivo");
+            activarTelemetria(archivo != null ? new File(archivo) : archivoTelemetriaPorDefecto(),
+                Long.getLong("reproductor.telemetria.segundos", 10));
+        }
+    }
+    
+    private static DecoderRegistry crearRegistroDecodificadores() {
+        DecoderRegistry registry = new DecoderRegistry();
+        // WAV/AIFF/AU con PCM lineal se leen mapeados en memoria; los demás
+        // (µ-law, A-law, coma flotante) pasan por AudioSystem
+        AudioDecoder nativo = new DecodificadorConCache(StreamAudioSource::open, true);
+        registry.register(AudioContainer.WAV, nativo);
+        registry.register(AudioContainer.AIFF, nativo);
+        registry.register(AudioContainer.AU, nativo);
+        
+        registry.register(AudioContainer.MP3, new DecodificadorConCache(new Mp3Decoder(), false));
+        return registry;
     }
     
     /**
-     * Verifica si hay soporte para MP3 disponible
+     * Decodificador incorporado: PCM mapeado si el archivo lo permite, si no la caché de PCM
+     * o el decodificador envuelto grabando en ella
      */
-    private static void checkMP3Support() {
-        try {
-            // Intentar cargar las clases necesarias para MP3
-            Class.forName("javazoom.jl.player.Player");
-            Class.forName("javazoom.spi.mpeg.sampled.file.MpegAudioFileReader");
-            mp3Available = true;
-            System.out.println("✅ Soporte MP3 detectado");
-        } catch (ClassNotFoundException e) {
-            mp3Available = false;
-            System.out.println("⚠️ Soporte MP3 no disponible - faltan bibliotecas");
+    private static final class DecodificadorConCache implements AudioDecoder {
+        private final AudioDecoder decodificador;
+        private final boolean mapeable;
+        
+        DecodificadorConCache(AudioDecoder decodificador, boolean mapeable) {
+            this.decodificador = decodificador;
+            this.mapeable = mapeable;
+        }
+        
+        @Override
+        public AudioSource open(File file) throws UnsupportedAudioFileException, IOException {
+            AudioSource mapped = mapeable ? MappedPcmSource.open(file) : null;
+            return mapped != null ? mapped : abrirFuenteDecodificada(file, decodificador);
         }
+        
+        /**
+         * Igual que open pero sin grabar en la caché de PCM (para el análisis de sonoridad)
+         */
+        AudioSource openSinGrabar(File file) throws UnsupportedAudioFileException, IOException {
+            AudioSource source = mapeable ? MappedPcmSource.open(file) : null;
+            if (source == null) {
+                source = PcmCache.shared().open(file);
+            }
+            return source != null ? source : decodificador.open(file);
+        }
+        
+        @Override
+        public boolean isAvailable() {
+            return decodificador.isAvailable();
+        }
+    }
+    
+    /**
+     * Añade un decodificador para un tipo de archivo; tiene prioridad sobre el incorporado
+     * siempre que esté disponible
+     */
+    public static void registrarDecodificador(AudioContainer tipo, AudioDecoder decodificador) {
+        DecoderHolder.REGISTRY.register(tipo, decodificador);
     }
     
     /**
-     * Verifica si MP3 está soportado en este sistema
+     * Verifica si MP3 está soportado en este sistema (la primera vez carga las bibliotecas)
      */
     public static boolean isMP3Supported() {
-        return mp3Available;
+        return DecoderHolder.REGISTRY.isAvailable(AudioContainer.MP3);
     }
     
     // Formatos de audio soportados
@@ -355,6 +486,7 @@ public class NodoLista {
         }
         
         System.out.println("\n=== ESTADO DEL SOPORTE MP3 ===");
+        boolean mp3Available = isMP3Supported();
         if (mp3Available) {
             System.out.println("✅ SOPORTE MP3 ACTIVADO");
             System.out.println("   Las bibliotecas MP3 están disponibles");
@@ -378,44 +510,16 @@ public class NodoLista {
     }
     
     /**
-     * Reproduce un archivo de audio usando javax.sound.sampled o MP3 player
+     * Reproduce un archivo de audio usando javax.sound.sampled o MP3 player.
+     * Bloquea hasta que el audio empieza a sonar; desde la interfaz usar playAsync
      */
     public static boolean reproducirAudio(URL audioURL) {
         try {
-            // Detener cualquier reproducción previa
-            detenerAudio();
-            
-            // Convertir URL a formato de archivo local si es necesario
-            File audioFile;
-            if (audioURL.getProtocol().equals("file")) {
-                audioFile = new File(audioURL.getPath());
-            } else {
-                audioFile = new File(audioURL.toString());
-            }
-            
-            // Verificar que el archivo existe
-            if (!audioFile.exists()) {
-                JOptionPane.showMessageDialog(null, "Error: El archivo no existe: " + audioFile.getAbsolutePath());
-                return false;
-            }
-            
-            // Verificar formato de archivo soportado
-            String fileName = audioFile.getName();
-            if (!isValidAudioFormat(fileName)) {
-                JOptionPane.showMessageDialog(null, 
-                    "Formato no soportado. Solo se permiten archivos: " + getSupportedFormatsString() + "\n" +
-                    "Archivo: " + fileName);
-                return false;
-            }
-            
-            // Reproducir MP3 si está disponible el soporte
-            if (fileName.toLowerCase().endsWith(".mp3")) {
-                return reproducirMP3(audioFile);
-            }
-            
-            // Reproducir formatos nativos (WAV, AU, AIFF)
-            return reproducirFormatoNativo(audioFile);
-            
+            playAsync(audioURL).join();
+            return true;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            JOptionPane.showMessageDialog(null, cause.getMessage());
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Error inesperado: " + e.getMessage());
         }
@@ -424,11 +528,91 @@ public class NodoLista {
     }
     
     /**
-     * Reproduce archivos MP3 usando bibliotecas especializadas
+     * Abre y empieza a reproducir la pista en el hilo de audio, sin bloquear al llamador.
+     * El futuro se completa en el hilo de audio: la interfaz debe volver al EDT con
+     * SwingUtilities.invokeLater. Si falla, la excepción lleva un mensaje listo para mostrar
+     */
+    public static CompletableFuture<PlaybackHandle> playAsync(URL audioURL) {
+        return player().play(audioURL);
+    }
+    
+    /**
+     * Reproductor de la aplicación (estado y órdenes); lo crea si aún no existe
+     */
+    public static PlaybackController getReproductor() {
+        return player();
+    }
+    
+    private static PlaybackController player() {
+        return PlayerHolder.PLAYER;
+    }
+    
+    private static PlaybackController crearReproductor() {
+        PlaybackController player = new PlaybackController("Reproductor-Audio",
+            new PlaybackController.TrackLoader() {
+                @Override
+                public AudioSource open(URL track) throws Exception {
+                    return abrirPista(track);
+                }
+                
+                @Override
+                public float gainDb(URL track) {
+                    return gananciaDePista(track);
+                }
+            });
+        player.addPlaybackListener(event -> {
+            for (PlaybackListener listener : oyentes) {
+                listener.playbackEvent(event);
+            }
+        });
+        player.setVolume(volumen);
+        player.setCrossfadeMicros(crossfadeMicros);
+        reproductorCreado = true;
+        return player;
+    }
+    
+    /**
+     * Abre la pista para el reproductor (se ejecuta en el hilo de audio)
+     */
+    static AudioSource abrirPista(URL audioURL) throws Exception {
+        // Convertir URL a formato de archivo local si es necesario
+        File audioFile = getFileFromURL(audioURL);
+        
+        // Verificar que el archivo existe
+        if (!audioFile.exists()) {
+            throw new Exception("Error: El archivo no existe: " + audioFile.getAbsolutePath());
+        }
+        
+        // El tipo se reconoce por el contenido: un archivo mal nombrado también suena
+        String fileName = audioFile.getName();
+        AudioContainer tipo = AudioContainer.identify(audioFile);
+        if (tipo == null) {
+            throw new Exception(
+                "Formato no soportado. Solo se permiten archivos: " + getSupportedFormatsString() + "\n" +
+                "Archivo: " + fileName);
+        }
+        
+        if (tipo == AudioContainer.MP3) {
+            Mp3SeekIndex.prefetch(audioFile); // Que el índice esté listo antes del primer salto
+        }
+        
+        // Reproducir MP3 si está disponible el soporte; si no, formatos nativos (WAV, AU, AIFF)
+        AudioSource source = tipo == AudioContainer.MP3
+            ? abrirMP3(audioFile)
+            : abrirFormatoNativo(audioFile, tipo);
+        
+        // Todas las pistas salen con el mismo formato: una sola línea para toda la sesión
+        AudioFormat salida = formatoSalida;
+        return salida != null ? NormalizingSource.wrap(source, salida) : source;
+    }
+    
+    /**
+     * Abre archivos MP3 usando bibliotecas especializadas
      */
-    private static boolean reproducirMP3(File audioFile) {
-        if (!mp3Available) {
-            JOptionPane.showMessageDialog(null, 
+    private static AudioSource abrirMP3(File audioFile) throws Exception {
+        AudioDecoder decoder = DecoderHolder.REGISTRY.decoderFor(AudioContainer.MP3);
+        if (decoder == null) {
+            throw new Exception(
                 "❌ SOPORTE MP3 NO DISPONIBLE\n\n" +
                 "Para reproducir MP3 necesitas descargar las bibliotecas:\n" +
                 "• mp3spi1.9.5.jar\n" +
@@ -437,194 +621,376 @@ public class NodoLista {
                 "Consulta: lib-mp3/INSTRUCCIONES_DESCARGA.txt\n" +
                 "Por ahora, convierte el archivo a WAV.\n\n" +
                 "Archivo: " + audioFile.getName());
-            return false;
         }
         
         try {
-            // Crear un AudioInputStream con soporte MP3
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-            
-            // Obtener el formato de audio
-            AudioFormat baseFormat = audioStream.getFormat();
-            
-            // Crear formato PCM decodificado
-            AudioFormat decodedFormat = new AudioFormat(
-                AudioFormat.Encoding.PCM_SIGNED,
-                baseFormat.getSampleRate(),
-                16,
-                baseFormat.getChannels(),
-                baseFormat.getChannels() * 2,
-                baseFormat.getSampleRate(),
-                false
-            );
-            
-            // Convertir a formato decodificado
-            AudioInputStream decodedStream = AudioSystem.getAudioInputStream(decodedFormat, audioStream);
-            
-            // Crear y reproducir con Clip
-            currentClip = AudioSystem.getClip();
-            currentClip.open(decodedStream);
-            currentClip.start();
-            isPlaying = true;
-            pausedPosition = 0;
-            
-            return true;
+            // Abrir el MP3 como flujo decodificado bajo demanda (sin cargarlo completo),
+            // o leerlo ya decodificado de la caché si sonó hace poco
+            return decoder.open(audioFile);
             
         } catch (UnsupportedAudioFileException e) {
-            JOptionPane.showMessageDialog(null, 
+            throw new Exception(
                 "❌ ERROR DE DECODIFICACIÓN MP3\n\n" +
                 "Las bibliotecas MP3 no están correctamente instaladas.\n" +
                 "Verifica que estén en el classpath:\n" +
                 "• mp3spi1.9.5.jar\n" +
                 "• jl1.0.1.jar\n" +
                 "• tritonus_share.jar\n\n" +
-                "Error: " + e.getMessage());
-            return false;
+                "Error: " + e.getMessage(), e);
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, "Error reproduciendo MP3: " + e.getMessage());
-            return false;
+            throw new Exception("Error reproduciendo MP3: " + e.getMessage(), e);
         }
     }
     
     /**
-     * Reproduce formatos nativos (WAV, AU, AIFF)
+     * Abre formatos nativos (WAV, AU, AIFF)
      */
-    private static boolean reproducirFormatoNativo(File audioFile) {
+    private static AudioSource abrirFormatoNativo(File audioFile, AudioContainer tipo) throws Exception {
+        AudioDecoder decoder = DecoderHolder.REGISTRY.decoderFor(tipo);
+        if (decoder == null) {
+            throw new Exception("No hay decodificador disponible para " + tipo.getDisplayName() + ": " + audioFile.getName());
+        }
         try {
-            // Cargar y reproducir el archivo con soporte nativo
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-            currentClip = AudioSystem.getClip();
-            currentClip.open(audioStream);
-            currentClip.start();
-            isPlaying = true;
-            pausedPosition = 0;
-            
-            return true;
+            // Reproducir en streaming: solo se mantiene en memoria el buffer circular
+            return decoder.open(audioFile);
             
         } catch (UnsupportedAudioFileException e) {
-            JOptionPane.showMessageDialog(null, "Formato de audio no soportado: " + e.getMessage());
+            throw new Exception("Formato de audio no soportado: " + e.getMessage(), e);
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error al leer el archivo: " + e.getMessage());
-        } catch (LineUnavailableException e) {
-            JOptionPane.showMessageDialog(null, "Línea de audio no disponible: " + e.getMessage());
+            throw new Exception("Error al leer el archivo: " + e.getMessage(), e);
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, "Error inesperado: " + e.getMessage());
+            throw new Exception("Error inesperado: " + e.getMessage(), e);
         }
-        
-        return false;
+    }
+    
+    /**
+     * Fuente para analizar la pista con el mismo decodificador que la reproduciría (elegido
+     * por contenido), pero sin grabar en la caché de PCM. null si su tipo no tiene decodificador
+     * disponible ahora (p. ej. MP3 sin bibliotecas); UnsupportedAudioFileException si el
+     * contenido no se reconoce o el decodificador lo rechaza
+     */
+    static AudioSource abrirParaAnalisis(File audioFile) throws UnsupportedAudioFileException, IOException {
+        AudioContainer tipo = AudioContainer.identify(audioFile);
+        if (tipo == null) {
+            throw new UnsupportedAudioFileException("Tipo de archivo no reconocido: " + audioFile.getName());
+        }
+        AudioDecoder decoder = DecoderHolder.REGISTRY.decoderFor(tipo);
+        if (decoder == null) {
+            return null;
+        }
+        return decoder instanceof DecodificadorConCache
+            ? ((DecodificadorConCache) decoder).openSinGrabar(audioFile)
+            : decoder.open(audioFile);
+    }
+    
+    /**
+     * Pistas que necesitan decodificador: desde la caché de PCM si están, si no
+     * decodificando y guardando el resultado para la próxima vez
+     */
+    private static AudioSource abrirFuenteDecodificada(File audioFile, AudioDecoder decoder)
+            throws UnsupportedAudioFileException, IOException {
+        AudioSource cached = PcmCache.shared().open(audioFile);
+        if (cached != null) {
+            return cached;
+        }
+        return PcmCache.shared().record(audioFile, decoder.open(audioFile));
+    }
+    
+    /**
+     * Límite de memoria (fuera del heap) para el audio decodificado de pistas recientes; 0 la desactiva
+     */
+    public static void setPcmCacheBudget(long bytes) {
+        PcmCache.shared().setBudget(bytes);
+    }
+    
+    /**
+     * Abre en el hilo de audio la siguiente pista para que suene a continuación de la
+     * actual sin pausa. No muestra diálogos: si no se puede preparar, la transición será la normal
+     */
+    public static void prepararSiguiente(URL audioURL) {
+        player().prepareNext(audioURL);
+    }
+    
+    /**
+     * Descarta la pista preparada con prepararSiguiente
+     */
+    public static void cancelarSiguiente() {
+        if (reproductorCreado) player().cancelNext();
+    }
+    
+    /**
+     * Registra un oyente de eventos del motor de reproducción (no crea el reproductor)
+     */
+    public static void addPlaybackListener(PlaybackListener listener) {
+        oyentes.add(listener);
+    }
+    
+    /**
+     * Registra un oyente de la posición: se le llama en el EDT, solo cuando la posición
+     * o la duración cambian, como mucho una vez por intervalo
+     */
+    public static void addPositionListener(PositionListener listener) {
+        posicion.addListener(listener);
+    }
+    
+    public static void removePositionListener(PositionListener listener) {
+        posicion.removeListener(listener);
+    }
+    
+    /**
+     * Milisegundos entre actualizaciones de la posición
+     */
+    public static void setIntervaloPosicion(long millis) {
+        posicion.setPeriodMillis(millis);
+    }
+    
+    /**
+     * Detiene las actualizaciones de la posición (por ejemplo con la ventana minimizada)
+     * o las reanuda con una publicación inmediata
+     */
+    public static void suspenderPosicion(boolean suspender) {
+        posicion.setSuspended(suspender);
     }
     
     /**
      * Pausa la reproducción actual guardando la posición
      */
     public static void pausarAudio() {
-        if (currentClip != null && isPlaying) {
-            pausedPosition = currentClip.getMicrosecondPosition(); // Guardar posición actual
-            currentClip.stop();
-            isPlaying = false;
-        }
+        if (reproductorCreado) player().pause();
     }
     
     /**
      * Reanuda la reproducción desde la posición guardada
      */
     public static void reanudarAudio() {
-        if (currentClip != null && !isPlaying) {
-            currentClip.setMicrosecondPosition(pausedPosition); // Restaurar posición exacta
-            currentClip.start();
-            isPlaying = true;
-        }
+        if (reproductorCreado) player().resume();
     }
     
     /**
-     * Detiene completamente la reproducción
+     * Detiene completamente la reproducción y anula las cargas que sigan en cola
      */
     public static void detenerAudio() {
-        if (currentClip != null) {
-            currentClip.stop();
-            currentClip.close();
-            currentClip = null;
-            isPlaying = false;
-            pausedPosition = 0; // Resetear posición pausada
-        }
+        if (reproductorCreado) player().stop();
     }
     
     /**
      * Verifica si hay audio reproduciéndose
      */
     public static boolean estaReproduciendo() {
-        if (currentClip != null && isPlaying) {
-            try {
-                return currentClip.isRunning() && currentClip.isOpen();
-            } catch (Exception e) {
-                return false;
-            }
-        }
-        return false;
+        return reproductorCreado && player().isPlaying();
+    }
+    
+    /**
+     * Estado actual del reproductor de la aplicación
+     */
+    public static PlaybackState getEstado() {
+        return reproductorCreado ? player().getState() : PlaybackState.IDLE;
     }
     
     /**
      * Establece el volumen de reproducción (0.0 a 1.0)
      */
     public static void setVolume(float volume) {
-        if (currentClip != null) {
-            try {
-                FloatControl volumeControl = (FloatControl) currentClip.getControl(FloatControl.Type.MASTER_GAIN);
-                float dB = (float) (Math.log(volume) / Math.log(10.0) * 20.0);
-                volumeControl.setValue(dB);
-            } catch (Exception e) {
-                // Si no se puede controlar el volumen, no hacer nada
-                System.out.println("No se puede controlar el volumen: " + e.getMessage());
-            }
-        }
+        volumen = volume;
+        if (reproductorCreado) player().setVolume(volume);
+    }
+    
+    /**
+     * Segundos de fundido entre pistas encadenadas (0 a 12; 0 las une sin mezclar)
+     */
+    public static void setCrossfade(int seconds) {
+        crossfadeMicros = seconds * 1_000_000L;
+        if (reproductorCreado) player().setCrossfadeMicros(crossfadeMicros);
     }
     
     /**
      * Obtiene el tiempo actual de reproducción en milisegundos
      */
     public static long getCurrentTime() {
-        if (currentClip != null && currentClip.isOpen()) {
-            try {
-                return currentClip.getMicrosecondPosition() / 1000;
-            } catch (Exception e) {
-                return 0;
-            }
-        }
-        return 0;
+        return reproductorCreado ? player().getPositionMicros() / 1000 : 0;
     }
     
     /**
      * Obtiene la duración total del audio en milisegundos
      */
     public static long getTotalTime() {
-        if (currentClip != null && currentClip.isOpen()) {
-            try {
-                return currentClip.getMicrosecondLength() / 1000;
-            } catch (Exception e) {
-                return 0;
+        if (!reproductorCreado) return 0;
+        long lengthMicros = player().getLengthMicros();
+        if (lengthMicros <= 0) {
+            // El decodificador aún no la conoce: usar la de las cabeceras si ya se leyó
+            URL track = player().getTrack();
+            TrackMetadata metadata = track != null ? metadatosEnCache(track) : null;
+            if (metadata != null && metadata.getDurationMicros() > 0) {
+                lengthMicros = metadata.getDurationMicros();
             }
         }
-        return 0;
+        return lengthMicros / 1000;
     }
     
+    // =============== METADATOS ===============
+    
     /**
-     * Salta a una posición específica en milisegundos
+     * Metadatos de la pista leídos solo de sus cabeceras. Si la caché tiene la
+     * misma fecha y tamaño no se abre el archivo. Devuelve null si no se pueden leer
      */
-    public static void seekTo(long timeMs) {
-        if (currentClip != null) {
-            long timeMicros = timeMs * 1000;
-            if (timeMicros >= 0 && timeMicros <= currentClip.getMicrosecondLength()) {
-                boolean wasPlaying = isPlaying;
-                if (wasPlaying) {
-                    currentClip.stop();
-                }
-                currentClip.setMicrosecondPosition(timeMicros);
-                pausedPosition = timeMicros; // Actualizar posición pausada
-                if (wasPlaying) {
-                    currentClip.start();
-                }
+    public static TrackMetadata obtenerMetadatos(URL audioURL) {
+        File audioFile = getFileFromURL(audioURL);
+        long modified = audioFile.lastModified();
+        if (modified == 0L) {
+            return null; // No existe o no se puede acceder
+        }
+        long size = audioFile.length();
+        String key = audioFile.getAbsolutePath();
+        
+        TrackMetadata metadata = MetadataHolder.CACHE.get(key, modified, size);
+        if (metadata != null) {
+            return metadata;
+        }
+        try {
+            metadata = MetadataReader.read(audioFile);
+        } catch (IOException e) {
+            return null;
+        }
+        if (metadata != null) {
+            MetadataHolder.CACHE.put(key, modified, size, metadata);
+        }
+        return metadata;
+    }
+    
+    /**
+     * Caché compartida de metadatos (para guardar y cargar listas con sus datos)
+     */
+    static MetadataCache getMetadataCache() {
+        return MetadataHolder.CACHE;
+    }
+    
+    /**
+     * Metadatos guardados para la pista sin tocar el archivo (null si aún no se leyeron)
+     */
+    public static TrackMetadata metadatosEnCache(URL audioURL) {
+        return MetadataHolder.CACHE.peek(getFileFromURL(audioURL).getAbsolutePath());
+    }
+    
+    /**
+     * Lee en segundo plano los metadatos de las pistas. Las que ya están en la
+     * caché y no cambiaron solo cuestan consultar fecha y tamaño
+     */
+    public static CompletableFuture<Void> cargarMetadatos(List<URL> pistas) {
+        final List<URL> copia = new ArrayList<>(pistas);
+        return CompletableFuture.runAsync(() -> {
+            for (URL url : copia) {
+                obtenerMetadatos(url);
             }
+        }, metadataExecutor);
+    }
+    
+    // =============== SONORIDAD ===============
+    
+    /**
+     * Mide en segundo plano la sonoridad de las pistas que aún no la tienen y la
+     * guarda con sus metadatos. onAnalyzed recibe cada pista terminada (fuera del EDT)
+     */
+    public static CompletableFuture<Void> analizarSonoridad(List<URL> pistas, Consumer<URL> onAnalyzed) {
+        return LoudnessHolder.SCANNER.analyze(new ArrayList<>(pistas), onAnalyzed);
+    }
+    
+    /**
+     * Detiene el análisis de sonoridad en curso
+     */
+    public static void cancelarAnalisisSonoridad() {
+        LoudnessHolder.SCANNER.cancel();
+    }
+    
+    private static AudioFormat formatoSalidaInicial() {
+        int hz = Integer.getInteger("reproductor.salidaHz", 44100);
+        int canales = Integer.getInteger("reproductor.salidaCanales", 2);
+        return hz > 0 ? NormalizingSource.outputFormat(hz, canales == 1 ? 1 : 2) : null;
+    }
+    
+    /**
+     * Convierte todas las pistas a PCM de 16 bits con esta frecuencia y canales (1 o 2),
+     * así la línea de salida no se reabre al cambiar de pista. Con hz 0 cada pista
+     * suena en su formato original. Vale desde la siguiente pista
+     */
+    public static void setFormatoSalida(float hz, int canales) {
+        if (hz > 0 && canales != 1 && canales != 2) {
+            throw new IllegalArgumentException("Canales de salida no soportados: " + canales);
+        }
+        formatoSalida = hz > 0 ? NormalizingSource.outputFormat(hz, canales) : null;
+    }
+    
+    /**
+     * Formato al que se convierten las pistas, o null si suenan en su formato original
+     */
+    public static AudioFormat getFormatoSalida() {
+        return formatoSalida;
+    }
+    
+    /**
+     * Activa o desactiva la corrección automática de volumen por pista (vale desde la siguiente pista)
+     */
+    public static void setNormalizarVolumen(boolean activar) {
+        normalizarVolumen = activar;
+    }
+    
+    public static boolean isNormalizarVolumen() {
+        return normalizarVolumen;
+    }
+    
+    /**
+     * Ganancia en dB que lleva la pista al nivel de referencia sin recortar su pico;
+     * 0 si no se analizó todavía o la corrección está desactivada
+     */
+    static float gananciaDePista(URL audioURL) {
+        if (!normalizarVolumen) return 0f;
+        TrackMetadata metadata = metadatosEnCache(audioURL);
+        if (metadata == null || !metadata.hasLoudness() || Float.isInfinite(metadata.getLoudness())) {
+            return 0f;
+        }
+        float gain = TARGET_LOUDNESS_LUFS - metadata.getLoudness();
+        if (metadata.getPeak() > 0f) {
+            gain = Math.min(gain, (float) (-20.0 * Math.log10(metadata.getPeak())));
         }
+        return Math.max(MAX_CUT_DB, Math.min(MAX_BOOST_DB, gain));
+    }
+    
+    // =============== TELEMETRÍA ===============
+    
+    /**
+     * Activa las métricas de reproducción (JMX reproductor1:type=Telemetria) y guarda
+     * un resumen JSON en archivo cada tantos segundos (archivo null: solo JMX)
+     */
+    public static void activarTelemetria(File archivo, long segundos) {
+        PlaybackTelemetry.get().start(archivo, segundos);
+    }
+    
+    /**
+     * Detiene las métricas; los puntos de medida vuelven a no costar nada
+     */
+    public static void desactivarTelemetria() {
+        PlaybackTelemetry.get().stop();
+    }
+    
+    /**
+     * Métricas acumuladas (las mismas que publica JMX)
+     */
+    public static PlaybackTelemetryMXBean getTelemetria() {
+        return PlaybackTelemetry.get();
+    }
+    
+    /**
+     * ~/.reproductor/telemetria.json
+     */
+    public static File archivoTelemetriaPorDefecto() {
+        return new File(new File(System.getProperty("user.home"), ".reproductor"), "telemetria.json");
+    }
+    
+    /**
+     * Salta a una posición específica en milisegundos (el reposicionamiento se hace en el hilo de audio;
+     * de varios saltos seguidos solo se ejecuta el último)
+     */
+    public static void seekTo(long timeMs) {
+        if (reproductorCreado) player().seek(timeMs * 1000);
     }
     
     /**
@@ -638,7 +1004,7 @@ public class NodoLista {
     /**
      * Reproduce una pista específica de la lista por índice
      */
-    public static Object reproducirPista(JFrame ventana, Object reproductor, LinkedList<URL> lista, int index) throws Exception {
+    public static Object reproducirPista(JFrame ventana, Object reproductor, List<URL> lista, int index) throws Exception {
         if (lista == null || lista.isEmpty()) {
             throw new Exception("Lista vacía o no inicializada");
         }
@@ -662,25 +1028,37 @@ public class NodoLista {
     }
     
     /**
-     * Actualiza la visualización de una JList con nombres de archivo más legibles
+     * Actualiza la visualización de una JList con nombres de archivo más legibles.
+     * Los nombres se calculan al pintar cada fila; si la JList ya muestra esta lista
+     * solo se sincroniza el modelo existente
      */
-    public static void updatePlaylistDisplay(JList<String> listComponent, LinkedList<URL> playlist) {
-        DefaultListModel<String> model = new DefaultListModel<>();
-        
-        if (playlist != null) {
-            for (int i = 0; i < playlist.size(); i++) {
-                String fileName = getFileNameFromURL(playlist.get(i));
-                model.addElement((i + 1) + ". " + fileName);
-            }
+    public static void updatePlaylistDisplay(JList<String> listComponent, List<URL> playlist) {
+        if (playlist == null) {
+            playlist = Collections.emptyList();
         }
         
-        listComponent.setModel(model);
+        ListModel<String> current = listComponent.getModel();
+        if (current instanceof PlaylistListModel && ((PlaylistListModel) current).getTracks() == playlist) {
+            ((PlaylistListModel) current).refresh();
+        } else {
+            listComponent.setModel(new PlaylistListModel(playlist, NodoLista::getFileNameFromURL));
+        }
+    }
+    
+    /**
+     * Convierte una URL de la lista en el archivo local correspondiente
+     */
+    static File getFileFromURL(URL audioURL) {
+        if (audioURL.getProtocol().equals("file")) {
+            return new File(audioURL.getPath());
+        }
+        return new File(audioURL.toString());
     }
     
     /**
      * Extrae el nombre del archivo de una URL
      */
-    private static String getFileNameFromURL(URL url) {
+    static String getFileNameFromURL(URL url) {
         String path = url.getPath();
         String fileName = path.substring(path.lastIndexOf('/') + 1);
         
@@ -0,0 +1,250 @@
+/*
+ * Reproductor de Música - Normalización del formato de salida
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.IOException;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Convierte cualquier fuente PCM al formato de salida fijo de la sesión (PCM de 16
+ * bits con signo, little-endian): pasa las muestras a float, ajusta los canales,
+ * remuestrea con {@link PolyphaseResampler} y vuelve a 16 bits. Así todas las pistas
+ * comparten una sola línea de salida y se encadenan o mezclan aunque sus archivos
+ * tengan frecuencias o profundidades distintas.
+ * <p>
+ * Los buffers se reservan al abrir la pista; leer bloques no reserva memoria.
+ * Si la fuente ya está en el formato de salida, {@link #wrap} la devuelve tal cual.
+ */
+final class NormalizingSource implements AudioSource {
+    private static final int BLOCK_FRAMES = 2048;
+    // Mezcla ITU de 5.1 a estéreo: centro y envolventes a -3 dB, sin LFE, escalada
+    // para que tres canales a plena escala no recorten
+    private static final float MINUS_3DB = 0.70710677f;
+    private static final float DOWNMIX_SCALE = 1f / (1f + 2f * MINUS_3DB);
+
+    private final AudioSource source;
+    private final AudioFormat inFormat;
+    private final AudioFormat outFormat;
+    private final int inChannels;
+    private final int outChannels;
+    private final int inFrameSize;
+    private final int outFrameSize;
+    private final PolyphaseResampler resampler; // null si la frecuencia no cambia
+
+    private final byte[] inBytes;
+    private final float[] inSamples;   // Entrada ya en float con los canales de salida
+    private final float[] outSamples;
+    private int leftoverBytes = 0;     // Frame incompleto de la lectura anterior
+    private int pendingFrames = 0;     // Sin remuestreo: frames de inSamples aún no entregados
+    private int pendingOffset = 0;
+    private boolean sourceEnded = false;
+
+    private NormalizingSource(AudioSource source, AudioFormat outFormat) {
+        this.source = source;
+        this.inFormat = source.getFormat();
+        this.outFormat = outFormat;
+        this.inChannels = inFormat.getChannels();
+        this.outChannels = outFormat.getChannels();
+        this.inFrameSize = inFormat.getFrameSize();
+        this.outFrameSize = outFormat.getFrameSize();
+        this.inBytes = new byte[BLOCK_FRAMES * inFrameSize];
+        this.inSamples = new float[BLOCK_FRAMES * outChannels];
+        this.outSamples = new float[BLOCK_FRAMES * outChannels];
+        this.resampler = Math.round(inFormat.getSampleRate()) == Math.round(outFormat.getSampleRate())
+            ? null
+            : new PolyphaseResampler(outChannels, inFormat.getSampleRate(), outFormat.getSampleRate(), BLOCK_FRAMES);
+    }
+
+    /**
+     * PCM de 16 bits con signo, little-endian, a la frecuencia y canales indicados (1 o 2)
+     */
+    static AudioFormat outputFormat(float sampleRate, int channels) {
+        return new AudioFormat(sampleRate, 16, channels, true, false);
+    }
+
+    /**
+     * Fuente que entrega el formato de salida. Devuelve la misma fuente si ya lo tiene
+     * o si su codificación no es PCM lineal (entonces la convierte AudioSystem, como antes)
+     */
+    static AudioSource wrap(AudioSource source, AudioFormat outFormat) {
+        AudioFormat format = source.getFormat();
+        if ((format.matches(outFormat) && outFormat.matches(format)) || !supports(format)) {
+            return source;
+        }
+        return new NormalizingSource(source, outFormat);
+    }
+
+    static boolean supports(AudioFormat format) {
+        int bits = format.getSampleSizeInBits();
+        AudioFormat.Encoding encoding = format.getEncoding();
+        boolean integer = (AudioFormat.Encoding.PCM_SIGNED.equals(encoding) && (bits == 16 || bits == 24 || bits == 32 || bits == 8))
+            || (AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding) && bits == 8);
+        boolean floating = AudioFormat.Encoding.PCM_FLOAT.equals(encoding) && bits == 32;
+        return (integer || floating) && format.getChannels() > 0
+            && format.getFrameSize() == format.getChannels() * bits / 8 && format.getSampleRate() > 0;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return outFormat;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int wanted = Math.min(length / outFrameSize, BLOCK_FRAMES);
+        int produced = 0;
+        while (produced < wanted) {
+            int frames;
+            if (resampler != null) {
+                frames = resampler.read(outSamples, wanted - produced);
+                toPcm16(outSamples, 0, frames, buffer, offset + produced * outFrameSize);
+            } else {
+                // Sin remuestreo: frames ya convertidos que quedaban en inSamples
+                frames = Math.min(wanted - produced, pendingFrames);
+                toPcm16(inSamples, pendingOffset * outChannels, frames, buffer, offset + produced * outFrameSize);
+                pendingFrames -= frames;
+                pendingOffset += frames;
+            }
+            produced += frames;
+            if (frames == 0) {
+                if (sourceEnded) break;
+                fill();
+            }
+        }
+        if (produced == 0 && sourceEnded) return -1;
+        return produced * outFrameSize;
+    }
+
+    /**
+     * Lee un bloque de la fuente y lo pasa al remuestreador (o a pendientes)
+     */
+    private void fill() throws IOException {
+        int maxFrames = resampler != null ? Math.min(BLOCK_FRAMES, resampler.writableFrames()) : BLOCK_FRAMES;
+        int maxBytes = maxFrames * inFrameSize;
+        int read = maxBytes > leftoverBytes ? source.read(inBytes, leftoverBytes, maxBytes - leftoverBytes) : 0;
+        if (read < 0) {
+            sourceEnded = true;
+            if (resampler != null) {
+                resampler.flush(); // Sacar la cola del filtro
+            }
+            return;
+        }
+        int total = leftoverBytes + read;
+        int frames = total / inFrameSize;
+        toFloat(frames);
+        leftoverBytes = total - frames * inFrameSize;
+        if (leftoverBytes > 0) {
+            System.arraycopy(inBytes, frames * inFrameSize, inBytes, 0, leftoverBytes);
+        }
+        if (resampler != null) {
+            resampler.write(inSamples, frames);
+        } else {
+            pendingFrames = frames;
+            pendingOffset = 0;
+        }
+    }
+
+    // =============== CONVERSIÓN DE MUESTRAS ===============
+
+    /**
+     * inBytes -> inSamples con los canales de salida
+     */
+    private void toFloat(int frames) {
+        int bits = inFormat.getSampleSizeInBits();
+        boolean bigEndian = inFormat.isBigEndian();
+        boolean floating = AudioFormat.Encoding.PCM_FLOAT.equals(inFormat.getEncoding());
+        boolean unsigned = AudioFormat.Encoding.PCM_UNSIGNED.equals(inFormat.getEncoding());
+        int bytes = bits / 8;
+        float scale = 1f / (1L << (bits - 1));
+
+        int pos = 0;
+        int out = 0;
+        for (int f = 0; f < frames; f++) {
+            float first = 0f;
+            float second = 0f;
+            float sum = 0f;
+            for (int c = 0; c < inChannels; c++) {
+                float sample;
+                if (floating) {
+                    sample = Float.intBitsToFloat(readInt(pos, 4, bigEndian));
+                } else if (bytes == 1) {
+                    sample = (unsigned ? (inBytes[pos] & 0xFF) - 128 : inBytes[pos]) * scale;
+                } else {
+                    int value = readInt(pos, bytes, bigEndian);
+                    int shift = 32 - bits;
+                    sample = ((value << shift) >> shift) * scale;
+                }
+                pos += bytes;
+                sum += sample;
+                if (inChannels == 6) {
+                    // L R C LFE Ls Rs
+                    if (c == 0 || c == 2 || c == 4) first += c == 0 ? sample : sample * MINUS_3DB;
+                    if (c == 1 || c == 2 || c == 5) second += c == 1 ? sample : sample * MINUS_3DB;
+                } else if (c == 0) {
+                    first = sample;
+                } else if (c == 1) {
+                    second = sample;
+                }
+            }
+            if (inChannels == 6) {
+                first *= DOWNMIX_SCALE;
+                second *= DOWNMIX_SCALE;
+            }
+            if (outChannels == 1) {
+                inSamples[out++] = sum / inChannels;
+            } else {
+                inSamples[out++] = first;
+                inSamples[out++] = inChannels == 1 ? first : second;
+            }
+        }
+    }
+
+    private int readInt(int pos, int bytes, boolean bigEndian) {
+        int value = 0;
+        for (int b = 0; b < bytes; b++) {
+            value = (value << 8) | (inBytes[pos + (bigEndian ? b : bytes - 1 - b)] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * float -> PCM 16 bits little-endian, recortando lo que se salga de rango
+     */
+    private void toPcm16(float[] samples, int from, int frames, byte[] buffer, int offset) {
+        int end = from + frames * outChannels;
+        int pos = offset;
+        for (int i = from; i < end; i++) {
+            float value = samples[i] * 32767f;
+            int sample = value >= 32767f ? 32767 : (value <= -32768f ? -32768 : Math.round(value));
+            buffer[pos++] = (byte) sample;
+            buffer[pos++] = (byte) (sample >> 8);
+        }
+    }
+
+    // =============== POSICIÓN ===============
+
+    @Override
+    public long getLengthMicros() {
+        return source.getLengthMicros();
+    }
+
+    @Override
+    public long seekMicros(long micros) throws IOException {
+        long reached = source.seekMicros(micros);
+        leftoverBytes = 0;
+        pendingFrames = 0;
+        pendingOffset = 0;
+        sourceEnded = false;
+        if (resampler != null) {
+            resampler.reset();
+        }
+        return reached;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Reproductor de Música - Líneas de salida reutilizables
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Conserva abiertas las líneas de salida entre pistas, una por formato. Pedir y
+ * abrir una línea del mezclador cuesta decenas o cientos de milisegundos con
+ * ALSA o PulseAudio; al soltarla aquí solo se detiene y se vacía, y la siguiente
+ * pista con el mismo formato la recibe ya abierta.
+ * <p>
+ * Guarda como mucho {@value #MAX_IDLE_LINES} líneas libres: al soltar una de otro
+ * formato con el cupo lleno se cierra la que lleva más tiempo sin usarse.
+ * No es seguro entre hilos; lo usa solo el motor dentro de sus métodos sincronizados.
+ */
+final class OutputLinePool {
+    private static final int MAX_IDLE_LINES = 2;
+
+    // Líneas abiertas sin usar, la más reciente primero
+    private final ArrayDeque<SourceDataLine> idle = new ArrayDeque<>();
+
+    /**
+     * Línea abierta con este formato: la que ya estaba abierta si la hay, o una nueva
+     * con el buffer indicado. La línea se entrega detenida y sin datos pendientes
+     */
+    SourceDataLine acquire(AudioFormat format, int bufferBytes) throws LineUnavailableException {
+        for (Iterator<SourceDataLine> it = idle.iterator(); it.hasNext(); ) {
+            SourceDataLine line = it.next();
+            if (matches(line, format)) {
+                it.remove();
+                return line;
+            }
+        }
+        SourceDataLine line = AudioSystem.getSourceDataLine(format);
+        line.open(format, bufferBytes);
+        return line;
+    }
+
+    /**
+     * Devuelve la línea sin cerrarla: se detiene y se descarta lo que no sonó
+     */
+    void release(SourceDataLine line) {
+        line.stop();
+        line.flush();
+        if (!line.isOpen()) return;
+        idle.addFirst(line);
+        while (idle.size() > MAX_IDLE_LINES) {
+            idle.removeLast().close();
+        }
+    }
+
+    /**
+     * Cierra todas las líneas libres
+     */
+    void closeAll() {
+        SourceDataLine line;
+        while ((line = idle.poll()) != null) {
+            line.close();
+        }
+    }
+
+    // El buffer no se compara: el mezclador puede haber concedido otro tamaño que el pedido
+    private static boolean matches(SourceDataLine line, AudioFormat format) {
+        if (!line.isOpen()) return false;
+        AudioFormat lineFormat = line.getFormat();
+        return lineFormat.matches(format) && format.matches(lineFormat);
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Reproductor de Música - Caché de audio decodificado fuera del heap
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Caché LRU del PCM ya decodificado de las últimas pistas, guardado en
+ * ByteBuffer directos (fuera del heap) con un límite de bytes.
+ * Una pista entra en la caché la primera vez que se decodifica entera de principio
+ * a fin; al repetirla (repetir una, o una lista corta en bucle) se lee de la caché
+ * sin abrir el decodificador. La clave es ruta + fecha de modificación + tamaño.
+ * <p>
+ * La memoria se reparte en bloques de {@link #BLOCK_BYTES} que se reciclan al
+ * expulsar entradas, así la memoria directa nunca supera el límite ni depende del GC.
+ */
+public final class PcmCache {
+    static final int BLOCK_BYTES = 256 * 1024;
+    private static final long DEFAULT_BUDGET_MB = 128;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<ByteBuffer> freeBlocks = new ArrayDeque<>();
+    private long budgetBytes;
+    private long allocatedBytes = 0; // Bloques creados (en uso, reservados o libres)
+    private long usedBytes = 0;      // Bloques de entradas completas
+
+    private static class Holder {
+        static final PcmCache SHARED = new PcmCache(
+            Long.getLong("reproductor.cachePcmMB", DEFAULT_BUDGET_MB) * 1024 * 1024);
+    }
+
+    public PcmCache(long budgetBytes) {
+        this.budgetBytes = Math.max(0, budgetBytes);
+    }
+
+    /**
+     * Caché de la aplicación; el límite se configura con -Dreproductor.cachePcmMB (0 la desactiva)
+     */
+    public static PcmCache shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * PCM de una pista completa: bloques llenos salvo el último
+     */
+    private static final class Entry {
+        final AudioFormat format;
+        final List<ByteBuffer> blocks;
+        final long length;
+        int readers = 0;
+        boolean evicted = false;
+
+        Entry(AudioFormat format, List<ByteBuffer> blocks, long length) {
+            this.format = format;
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+
+    // =============== CONFIGURACIÓN ===============
+
+    /**
+     * Cambia el límite en bytes; expulsa lo que no quepa (0 desactiva la caché)
+     */
+    public synchronized void setBudget(long bytes) {
+        budgetBytes = Math.max(0, bytes);
+        evictToBudget();
+        trimFreeBlocks();
+    }
+
+    public synchronized long getBudget() {
+        return budgetBytes;
+    }
+
+    /**
+     * Bytes ocupados por pistas completas
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Vacía la caché (las pistas que se están leyendo se liberan al cerrarlas)
+     */
+    public synchronized void clear() {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            it.remove();
+            evict(entry);
+        }
+        trimFreeBlocks();
+    }
+
+    // =============== LECTURA Y GRABACIÓN ===============
+
+    /**
+     * Fuente que lee la pista desde la caché, o null si no está (o el archivo cambió)
+     */
+    public synchronized AudioSource open(File file) {
+        Entry entry = entries.get(keyOf(file));
+        if (entry == null) return null;
+        entry.readers++;
+        return new CachedSource(entry);
+    }
+
+    /**
+     * Envuelve una fuente decodificada para guardar su PCM mientras se reproduce.
+     * Si la caché está desactivada o la pista no cabe, devuelve la misma fuente
+     */
+    public AudioSource record(File file, AudioSource source) {
+        AudioFormat format = source.getFormat();
+        long expected = expectedBytes(format, source.getLengthMicros());
+        synchronized (this) {
+            if (budgetBytes < BLOCK_BYTES || expected > budgetBytes || entries.containsKey(keyOf(file))) {
+                return source;
+            }
+        }
+        return new RecordingSource(keyOf(file), source);
+    }
+
+    private static long expectedBytes(AudioFormat format, long lengthMicros) {
+        if (lengthMicros <= 0 || format.getFrameRate() <= 0) return 0;
+        return (long) (lengthMicros / 1_000_000.0 * format.getFrameRate()) * format.getFrameSize();
+    }
+
+    private static String keyOf(File file) {
+        return file.getAbsolutePath() + '\u0000' + file.lastModified() + '\u0000' + file.length();
+    }
+
+    // =============== BLOQUES ===============
+
+    /**
+     * Un bloque libre o nuevo; si no queda presupuesto expulsa las pistas menos usadas.
+     * null si ni así cabe (la grabación se abandona)
+     */
+    private synchronized ByteBuffer takeBlock() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (true) {
+            ByteBuffer block = freeBlocks.pollFirst();
+            if (block != null) {
+                block.clear();
+                return block;
+            }
+            if (allocatedBytes + BLOCK_BYTES <= budgetBytes) {
+                allocatedBytes += BLOCK_BYTES;
+                return ByteBuffer.allocateDirect(BLOCK_BYTES);
+            }
+            if (!eldest.hasNext()) return null;
+            Entry entry = eldest.next();
+            eldest.remove();
+            evict(entry);
+        }
+    }
+
+    private synchronized void returnBlocks(List<ByteBuffer> blocks) {
+        freeBlocks.addAll(blocks);
+        trimFreeBlocks();
+    }
+
+    private synchronized void commit(String key, AudioFormat format, List<ByteBuffer> blocks, long length) {
+        Entry previous = entries.put(key, new Entry(format, blocks, length));
+        usedBytes += (long) blocks.size() * BLOCK_BYTES;
+        if (previous != null) {
+            evict(previous);
+        }
+    }
+
+    /**
+     * Expulsa las pistas menos usadas hasta que los bloques ocupados quepan en el límite
+     */
+    private void evictToBudget() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (allocatedBytes - (long) freeBlocks.size() * BLOCK_BYTES > budgetBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry entry) {
+        entry.evicted = true;
+        usedBytes -= (long) entry.blocks.size() * BLOCK_BYTES;
+        if (entry.readers == 0) {
+            freeBlocks.addAll(entry.blocks);
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.readers--;
+        if (entry.evicted && entry.readers == 0) {
+            freeBlocks.addAll(entry.blocks);
+            trimFreeBlocks();
+        }
+    }
+
+    /**
+     * Suelta los bloques libres que sobran tras bajar el límite
+     */
+    private void trimFreeBlocks() {
+        while (allocatedBytes > budgetBytes && !freeBlocks.isEmpty()) {
+            freeBlocks.pollLast();
+            allocatedBytes -= BLOCK_BYTES;
+        }
+    }
+
+    // =============== FUENTES ===============
+
+    /**
+     * Lee una pista de la caché: saltar es solo calcular la posición
+     */
+    private final class CachedSource implements AudioSource {
+        private final Entry entry;
+        private final int frameSize;
+        private long position = 0;
+        private boolean closed = false;
+
+        CachedSource(Entry entry) {
+            this.entry = entry;
+            this.frameSize = Math.max(1, entry.format.getFrameSize());
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return entry.format;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= entry.length) return -1;
+            length -= length % frameSize;
+            int total = 0;
+            while (total < length && position < entry.length) {
+                ByteBuffer block = entry.blocks.get((int) (position / BLOCK_BYTES));
+                int inBlock = (int) (position % BLOCK_BYTES);
+                int count = (int) Math.min(length - total, Math.min(BLOCK_BYTES - inBlock, entry.length - position));
+                // Lectura absoluta sobre un duplicado: varias fuentes pueden compartir la entrada
+                ByteBuffer view = block.duplicate();
+                view.position(inBlock);
+                view.get(buffer, offset + total, count);
+                total += count;
+                position += count;
+            }
+            return total;
+        }
+
+        @Override
+        public long getLengthMicros() {
+            return (long) (entry.length / frameSize * 1_000_000L / entry.format.getFrameRate());
+        }
+
+        @Override
+        public long seekMicros(long micros) {
+            long frame = (long) (micros / 1_000_000.0 * entry.format.getFrameRate());
+            position = Math.max(0, Math.min(entry.length, frame * frameSize));
+            return (long) (position / frameSize * 1_000_000L / entry.format.getFrameRate());
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    /**
+     * Copia en bloques lo que devuelve el decodificador. Al llegar al final sin
+     * haber saltado, la pista pasa a la caché; si no, los bloques se devuelven
+     */
+    private final class RecordingSource implements AudioSource {
+        private final String key;
+        private final AudioSource source;
+        private List<ByteBuffer> blocks = new ArrayList<>();
+        private ByteBuffer current;
+        private long recorded = 0;
+
+        RecordingSource(String key, AudioSource source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return source.getFormat();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = source.read(buffer, offset, length);
+            if (blocks == null) return read;
+            if (read < 0) {
+                finish();
+            } else if (read > 0) {
+                append(buffer, offset, read);
+            }
+            return read;
+        }
+
+        private void append(byte[] buffer, int offset, int length) {
+            while (length > 0) {
+                if (current == null || !current.hasRemaining()) {
+                    current = takeBlock();
+                    if (current == null) {
+                        abandon(); // No cabe en el límite
+                        return;
+                    }
+                    blocks.add(current);
+                }
+                int count = Math.min(length, current.remaining());
+                current.put(buffer, offset, count);
+                offset += count;
+                length -= count;
+                recorded += count;
+            }
+        }
+
+        private void finish() {
+            List<ByteBuffer> complete = blocks;
+            blocks = null;
+            current = null;
+            if (recorded > 0) {
+                commit(key, source.getFormat(), complete, recorded);
+            } else {
+                returnBlocks(complete);
+            }
+        }
+
+        private void abandon() {
+            if (blocks != null) {
+                returnBlocks(blocks);
+                blocks = null;
+                current = null;
+            }
+        }
+
+        @Override
+        public long getLengthMicros() {
+            return source.getLengthMicros();
+        }
+
+        @Override
+        public long seekMicros(long micros) throws IOException {
+            long reached = source.seekMicros(micros);
+            if (blocks == null) return reached;
+            if (micros == 0) {
+                // Volver al inicio (p. ej. la siguiente pista devuelta a la espera): regrabar
+                returnBlocks(blocks);
+                blocks = new ArrayList<>();
+                current = null;
+                recorded = 0;
+            } else {
+                abandon(); // La grabación quedaría con un hueco
+            }
+            return reached;
+        }
+
+        @Override
+        public void close() throws IOException {
+            abandon();
+            source.close();
+        }
+    }
+}
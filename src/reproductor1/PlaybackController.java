@@ -0,0 +1,289 @@
+/*
+ * Reproductor de Música - Control de la reproducción con máquina de estados
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.net.URL;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * Reproductor independiente: un {@link StreamingEngine} propio, un hilo de audio
+ * propio y una máquina de estados ({@link PlaybackState}).
+ * <p>
+ * Todas las órdenes que tocan el motor se encolan y las ejecuta en orden un único
+ * hilo, el único que escribe en el motor. El estado es una referencia atómica
+ * a un par (estado, número de petición) y cambia solo con compareAndSet, así un
+ * evento o una orden atrasada nunca pisa el estado de una petición posterior.
+ * <p>
+ * Las ráfagas se agrupan: cada play y cada salto recibe un número al pedirse y el
+ * hilo de audio descarta los que ya tienen uno posterior en cola. Pulsar "siguiente"
+ * veinte veces seguidas abre solo la última pista.
+ */
+public class PlaybackController {
+
+    /**
+     * Abre las pistas para este reproductor
+     */
+    public interface TrackLoader {
+        /**
+         * Fuente lista para reproducir; si falla, la excepción lleva un mensaje para mostrar
+         */
+        AudioSource open(URL track) throws Exception;
+
+        /**
+         * Ganancia propia de la pista en dB (corrección de sonoridad)
+         */
+        float gainDb(URL track);
+    }
+
+    /**
+     * Estado junto con la petición de reproducción a la que pertenece
+     */
+    private static final class Status {
+        final PlaybackState state;
+        final long request;
+
+        Status(PlaybackState state, long request) {
+            this.state = state;
+            this.request = request;
+        }
+    }
+
+    private final StreamingEngine engine = new StreamingEngine();
+    private final TrackLoader loader;
+    private final ExecutorService audioThread;
+    private final AtomicReference<Status> status = new AtomicReference<>(new Status(PlaybackState.IDLE, 0));
+    // Última petición de reproducción (play o stop) y último salto pedidos
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong seeks = new AtomicLong();
+
+    public PlaybackController(String threadName, TrackLoader loader) {
+        this.loader = loader;
+        this.audioThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        engine.addPlaybackListener(event -> {
+            if (event.getType() == PlaybackEvent.Type.EOF) {
+                Status current = status.get();
+                transition(current.request, PlaybackState.PLAYING, PlaybackState.ENDED);
+            }
+        });
+    }
+
+    public PlaybackState getState() {
+        return status.get().state;
+    }
+
+    // =============== ÓRDENES (desde cualquier hilo) ===============
+
+    /**
+     * Abre y reproduce la pista en el hilo de audio. El futuro se completa allí; si
+     * otra orden posterior la reemplaza antes de abrirla se cancela sin tocar el disco
+     */
+    public CompletableFuture<PlaybackHandle> play(URL track) {
+        long request = newRequest(PlaybackState.LOADING);
+        PlaybackTelemetry.playRequested();
+        CompletableFuture<PlaybackHandle> result = new CompletableFuture<>();
+        audioThread.execute(() -> {
+            if (superseded(request)) {
+                result.completeExceptionally(new CancellationException("Reemplazada por otra orden"));
+                return;
+            }
+            try {
+                AudioSource source = loader.open(track);
+                try {
+                    engine.play(source, track, loader.gainDb(track));
+                } catch (LineUnavailableException e) {
+                    throw new Exception("Línea de audio no disponible: " + e.getMessage(), e);
+                }
+                transition(request, PlaybackState.LOADING, PlaybackState.PLAYING);
+                result.complete(new PlaybackHandle(track, engine.getFormat(), engine.getLengthMicros()));
+            } catch (Exception e) {
+                PlaybackTelemetry.requestAbandoned();
+                PlaybackTelemetry.error();
+                // No sigue sonando la pista anterior: el estado queda en IDLE
+                engine.stop();
+                transition(request, PlaybackState.LOADING, PlaybackState.IDLE);
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Prepara la pista que sonará a continuación sin pausa. Se descarta si antes
+     * llega otra orden de reproducción; si no se puede abrir, la transición será la normal
+     */
+    public void prepareNext(URL track) {
+        long request = requests.get();
+        audioThread.execute(() -> {
+            if (superseded(request)) return;
+            try {
+                engine.prepareNext(loader.open(track), track, loader.gainDb(track));
+            } catch (Exception e) {
+                System.err.println("No se pudo preparar la siguiente pista: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Descarta la pista preparada con prepareNext
+     */
+    public void cancelNext() {
+        audioThread.execute(engine::cancelNext);
+    }
+
+    public void pause() {
+        audioThread.execute(() -> {
+            Status current = status.get();
+            if (current.state == PlaybackState.PLAYING) {
+                engine.pause();
+                transition(current.request, PlaybackState.PLAYING, PlaybackState.PAUSED);
+            }
+        });
+    }
+
+    public void resume() {
+        audioThread.execute(() -> {
+            Status current = status.get();
+            if (current.state == PlaybackState.PAUSED) {
+                engine.resume();
+                transition(current.request, PlaybackState.PAUSED, PlaybackState.PLAYING);
+            }
+        });
+    }
+
+    /**
+     * Detiene la reproducción; también anula las cargas y saltos que sigan en cola
+     */
+    public void stop() {
+        long request = newRequest(PlaybackState.IDLE);
+        audioThread.execute(() -> {
+            if (!superseded(request)) {
+                engine.stop();
+            }
+        });
+    }
+
+    /**
+     * Salta a la posición indicada de la pista actual. De varios saltos seguidos solo
+     * se ejecuta el último; el estado de pausa se conserva
+     */
+    public void seek(long micros) {
+        long request = requests.get();
+        long seek = seeks.incrementAndGet();
+        PlaybackTelemetry.seekRequested();
+        audioThread.execute(() -> {
+            if (seek != seeks.get()) return; // Hay un salto posterior en cola
+            PlaybackState from = status.get().state;
+            boolean seekable = from == PlaybackState.PLAYING || from == PlaybackState.PAUSED
+                || from == PlaybackState.ENDED;
+            long lengthMicros = engine.getLengthMicros();
+            if (superseded(request) || !seekable || !engine.isOpen()
+                    || micros < 0 || (lengthMicros > 0 && micros > lengthMicros)
+                    || !transition(request, from, PlaybackState.SEEKING)) {
+                PlaybackTelemetry.requestAbandoned();
+                return;
+            }
+            engine.seek(micros);
+            // Desde el final la pista vuelve a sonar; la pausa se conserva
+            transition(request, PlaybackState.SEEKING,
+                from == PlaybackState.PAUSED ? PlaybackState.PAUSED : PlaybackState.PLAYING);
+        });
+    }
+
+    // =============== CONSULTAS Y AJUSTES (sin pasar por la cola) ===============
+
+    /**
+     * Indica si hay audio sonando (no cargando, pausado ni terminado)
+     */
+    public boolean isPlaying() {
+        return status.get().state == PlaybackState.PLAYING && engine.isPlaying();
+    }
+
+    public long getPositionMicros() {
+        return engine.getPositionMicros();
+    }
+
+    /**
+     * Duración de la pista actual en microsegundos, 0 si todavía no se conoce
+     */
+    public long getLengthMicros() {
+        return engine.getLengthMicros();
+    }
+
+    /**
+     * Pista que suena ahora, o null si no hay ninguna
+     */
+    public URL getTrack() {
+        return engine.getTrack();
+    }
+
+    public void setVolume(float volume) {
+        engine.setVolume(volume);
+    }
+
+    public void setCrossfadeMicros(long micros) {
+        engine.setCrossfadeMicros(micros);
+    }
+
+    /**
+     * Registra un oyente de eventos del motor (se invoca desde los hilos de audio)
+     */
+    public void addPlaybackListener(PlaybackListener listener) {
+        engine.addPlaybackListener(listener);
+    }
+
+    public void removePlaybackListener(PlaybackListener listener) {
+        engine.removePlaybackListener(listener);
+    }
+
+    /**
+     * Detiene el audio, cierra sus líneas de salida y termina el hilo de este reproductor
+     */
+    public void shutdown() {
+        newRequest(PlaybackState.IDLE);
+        audioThread.execute(engine::close);
+        audioThread.shutdown();
+    }
+
+    // =============== TRANSICIONES ===============
+
+    /**
+     * Nueva petición que reemplaza a todas las anteriores, con su estado inicial
+     */
+    private long newRequest(PlaybackState initial) {
+        long request = requests.incrementAndGet();
+        Status current;
+        do {
+            current = status.get();
+            if (current.request > request) break; // Otra petición aún más nueva ya publicó su estado
+        } while (!status.compareAndSet(current, new Status(initial, request)));
+        return request;
+    }
+
+    private boolean superseded(long request) {
+        return request != requests.get();
+    }
+
+    /**
+     * Pasa de from a to solo si el estado sigue siendo from para esta misma petición
+     */
+    private boolean transition(long request, PlaybackState from, PlaybackState to) {
+        Status current;
+        do {
+            current = status.get();
+            if (current.request != request || current.state != from) return false;
+        } while (!status.compareAndSet(current, new Status(to, request)));
+        return true;
+    }
+}
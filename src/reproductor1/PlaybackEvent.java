@@ -0,0 +1,49 @@
+/*
+ * Reproductor de Música - Evento del motor de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.net.URL;
+
+/**
+ * Evento publicado por el motor de reproducción
+ */
+public class PlaybackEvent {
+
+    /**
+     * Tipos de evento
+     */
+    public enum Type {
+        /** La siguiente pista preparada empezó a sonar sin pausa por la misma línea */
+        TRACK_CHANGED,
+        /** La pista terminó de sonar y no había ninguna encadenada */
+        EOF,
+        /** La reproducción se detuvo por una orden (stop o cambio de pista) */
+        STOP
+    }
+
+    private final Type type;
+    private final URL track;
+
+    public PlaybackEvent(Type type, URL track) {
+        this.type = type;
+        this.track = track;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Pista a la que se refiere el evento
+     */
+    public URL getTrack() {
+        return track;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + track;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Reproductor de Música - Resultado de una orden de reproducción asíncrona
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.net.URL;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Describe la pista que empezó a sonar tras {@link NodoLista#playAsync(URL)}
+ */
+public class PlaybackHandle {
+    private final URL track;
+    private final AudioFormat format;
+    private final long lengthMicros;
+
+    public PlaybackHandle(URL track, AudioFormat format, long lengthMicros) {
+        this.track = track;
+        this.format = format;
+        this.lengthMicros = lengthMicros;
+    }
+
+    public URL getTrack() {
+        return track;
+    }
+
+    /**
+     * Formato PCM con el que se abrió la línea de salida
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Duración en microsegundos, 0 si todavía no se conoce
+     */
+    public long getLengthMicros() {
+        return lengthMicros;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Reproductor de Música - Historial de reproducción para anterior/siguiente
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Historial acotado de las pistas que sonaron, en un buffer circular de int.
+ * Guarda los identificadores estables de {@link Playlist}, así que mover pistas
+ * no lo altera; al eliminar una pista se quitan sus entradas. Cada entrada lleva
+ * además la posición que tenía la pista al sonar, para encontrarla sin recorrer la lista.
+ * Retroceder y avanzar son O(1) y la memoria es fija sin importar la duración
+ * de la sesión: al llenarse se descartan las entradas más antiguas.
+ */
+public class PlaybackHistory {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int[] ids;
+    private final int[] hints; // Posición en la lista cuando se registró cada entrada
+    private int start = 0;   // Entrada más antigua dentro del buffer
+    private int count = 0;   // Entradas guardadas
+    private int cursor = -1; // Entrada que suena ahora (relativa a start)
+
+    public PlaybackHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PlaybackHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        }
+        ids = new int[capacity];
+        hints = new int[capacity];
+    }
+
+    /**
+     * Registra la pista que empezó a sonar y su posición en la lista. Si se había
+     * retrocedido, las entradas posteriores al cursor se descartan (como en un navegador)
+     */
+    public void push(int id, int index) {
+        if (cursor >= 0 && ids[slot(cursor)] == id) {
+            hints[slot(cursor)] = index; // Ya es la actual (repetición o navegación por el historial)
+            return;
+        }
+        count = cursor + 1;
+        if (count == ids.length) {
+            start = (start + 1) % ids.length;
+            count--;
+        }
+        ids[slot(count)] = id;
+        hints[slot(count)] = index;
+        count++;
+        cursor = count - 1;
+    }
+
+    /**
+     * Identificador de la pista actual, o -1 si el historial está vacío
+     */
+    public int current() {
+        return cursor >= 0 ? ids[slot(cursor)] : -1;
+    }
+
+    /**
+     * Posición que tenía la entrada actual al registrarse, o -1 si el historial está vacío
+     */
+    public int currentHint() {
+        return cursor >= 0 ? hints[slot(cursor)] : -1;
+    }
+
+    public boolean hasPrevious() {
+        return cursor > 0;
+    }
+
+    public boolean hasNext() {
+        return cursor < count - 1;
+    }
+
+    /**
+     * Retrocede una entrada y devuelve su identificador, o -1 si no hay anterior
+     */
+    public int previous() {
+        if (cursor <= 0) return -1;
+        cursor--;
+        return ids[slot(cursor)];
+    }
+
+    /**
+     * Avanza una entrada (tras haber retrocedido) y devuelve su identificador, o -1
+     */
+    public int next() {
+        if (cursor >= count - 1) return -1;
+        cursor++;
+        return ids[slot(cursor)];
+    }
+
+    /**
+     * Identificador de la entrada siguiente sin avanzar, o -1
+     */
+    public int peekNext() {
+        return cursor < count - 1 ? ids[slot(cursor + 1)] : -1;
+    }
+
+    /**
+     * Posición registrada de la entrada siguiente, o -1
+     */
+    public int peekNextHint() {
+        return cursor < count - 1 ? hints[slot(cursor + 1)] : -1;
+    }
+
+    /**
+     * La pista con ese identificador se eliminó de la lista: quitar sus entradas
+     * compactando el buffer, y fusionar las vecinas que queden repetidas
+     */
+    public void remove(int id) {
+        int kept = 0;
+        int newCursor = -1;
+        for (int i = 0; i < count; i++) {
+            int value = ids[slot(i)];
+            boolean duplicate = kept > 0 && ids[slot(kept - 1)] == value;
+            if (value != id && !duplicate) {
+                hints[slot(kept)] = hints[slot(i)];
+                ids[slot(kept)] = value;
+                kept++;
+            }
+            if (i == cursor) {
+                newCursor = kept - 1; // La actual eliminada: queda la anterior
+            }
+        }
+        count = kept;
+        cursor = count == 0 ? -1 : Math.max(newCursor, 0);
+    }
+
+    /**
+     * Vacía el historial
+     */
+    public void clear() {
+        start = 0;
+        count = 0;
+        cursor = -1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    private int slot(int offset) {
+        return (start + offset) % ids.length;
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Reproductor de Música - Oyente de eventos del motor de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Recibe los eventos que publica el motor de reproducción.
+ * Se invoca desde los hilos de audio: quien actualice la interfaz debe
+ * pasar el trabajo al EDT con SwingUtilities.invokeLater
+ */
+public interface PlaybackListener {
+
+    void playbackEvent(PlaybackEvent event);
+}
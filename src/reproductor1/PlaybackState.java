@@ -0,0 +1,23 @@
+/*
+ * Reproductor de Música - Estados de la reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Estado de un {@link PlaybackController}
+ */
+public enum PlaybackState {
+    /** Sin pista cargada (al inicio, tras detener o si falló la carga) */
+    IDLE,
+    /** Se pidió una pista y se está abriendo en el hilo de audio */
+    LOADING,
+    /** Hay audio sonando */
+    PLAYING,
+    /** Pista cargada con la salida en pausa */
+    PAUSED,
+    /** Reposicionando la pista actual */
+    SEEKING,
+    /** La pista terminó y no había ninguna encadenada */
+    ENDED
+}
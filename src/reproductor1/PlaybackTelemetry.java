@@ -0,0 +1,332 @@
+/*
+ * Reproductor de Música - Telemetría de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sound.sampled.AudioFormat;
+import javax.swing.SwingUtilities;
+
+/**
+ * Contadores e histogramas de la reproducción: tiempo hasta el primer sonido,
+ * latencia de los saltos, velocidad de decodificación, vaciados de la línea de
+ * salida y bloqueos del EDT. Todo se registra con operaciones atómicas, sin
+ * bloqueos, desde los hilos del motor.
+ * <p>
+ * Desactivada (lo normal) cada punto de medida es una lectura de un volatile y
+ * un retorno: no se llama a System.nanoTime ni se consulta la línea. Activada,
+ * se publica por JMX y un hilo de fondo sondea el EDT y escribe periódicamente
+ * un resumen JSON en disco.
+ */
+public final class PlaybackTelemetry implements PlaybackTelemetryMXBean {
+    static final String OBJECT_NAME = "reproductor1:type=Telemetria";
+    private static final long EDT_PROBE_MS = 100;
+
+    private static final PlaybackTelemetry INSTANCE = new PlaybackTelemetry();
+    private static volatile boolean enabled = false;
+
+    private final LatencyHistogram timeToFirstSample = new LatencyHistogram();
+    private final LatencyHistogram seekLatency = new LatencyHistogram();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    private final LatencyHistogram edtBlocking = new LatencyHistogram();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder decodedAudioMicros = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder underruns = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // Instante de la última petición pendiente de sonar (0 = ninguna)
+    private final AtomicLong playRequested = new AtomicLong();
+    private final AtomicLong seekRequested = new AtomicLong();
+    private final AtomicBoolean edtProbePending = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+    private File snapshotFile;
+    private long snapshotSeconds = 10;
+    private boolean registered = false;
+    private boolean shutdownHook = false;
+
+    private PlaybackTelemetry() {
+    }
+
+    static PlaybackTelemetry get() {
+        return INSTANCE;
+    }
+
+    static boolean isActive() {
+        return enabled;
+    }
+
+    /**
+     * Activa la telemetría, la registra en JMX y, si snapshot no es null, escribe
+     * el resumen en ese archivo cada periodSeconds
+     */
+    synchronized void start(File snapshot, long periodSeconds) {
+        stopScheduler();
+        snapshotFile = snapshot;
+        snapshotSeconds = Math.max(1, periodSeconds);
+        registerMBean();
+        if (!shutdownHook) {
+            // Al cerrar la aplicación se guarda el último resumen
+            Runtime.getRuntime().addShutdownHook(new Thread(this::writeSnapshotQuietly, "Reproductor-Telemetria-Cierre"));
+            shutdownHook = true;
+        }
+        enabled = true;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Reproductor-Telemetria");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeEdt, EDT_PROBE_MS, EDT_PROBE_MS, TimeUnit.MILLISECONDS);
+        if (snapshotFile != null) {
+            scheduler.scheduleWithFixedDelay(this::writeSnapshotQuietly,
+                snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Deja de medir; el último resumen se escribe antes de parar
+     */
+    synchronized void stop() {
+        if (!enabled) return;
+        enabled = false;
+        stopScheduler();
+        writeSnapshotQuietly();
+    }
+
+    private void stopScheduler() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void registerMBean() {
+        if (registered) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+            registered = true;
+        } catch (JMException | SecurityException e) {
+            System.err.println("No se pudo publicar la telemetría por JMX: " + e.getMessage());
+        }
+    }
+
+    // =============== PUNTOS DE MEDIDA (llamados desde el motor) ===============
+
+    /**
+     * Marca de tiempo para medir una operación; 0 si la telemetría está apagada
+     */
+    static long now() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Se pidió reproducir una pista: empieza a contar el tiempo hasta el primer sonido
+     */
+    static void playRequested() {
+        if (enabled) INSTANCE.playRequested.set(System.nanoTime());
+    }
+
+    /**
+     * Se pidió un salto: empieza a contar hasta que suene la nueva posición
+     */
+    static void seekRequested() {
+        if (enabled) INSTANCE.seekRequested.set(System.nanoTime());
+    }
+
+    /**
+     * La petición no llegó a sonar (error al abrir o nada que reposicionar)
+     */
+    static void requestAbandoned() {
+        if (!enabled) return;
+        INSTANCE.playRequested.set(0);
+        INSTANCE.seekRequested.set(0);
+    }
+
+    /**
+     * El primer bloque tras abrir o reposicionar la línea ya se escribió en ella
+     */
+    static void firstBlockWritten() {
+        if (!enabled) return;
+        long time = System.nanoTime();
+        long seek = INSTANCE.seekRequested.getAndSet(0);
+        long play = INSTANCE.playRequested.getAndSet(0);
+        if (play != 0) {
+            INSTANCE.timeToFirstSample.record(time - play);
+        } else if (seek != 0) {
+            INSTANCE.seekLatency.record(time - seek);
+        }
+    }
+
+    /**
+     * Una lectura del decodificador que empezó en start (valor de {@link #now()})
+     */
+    static void decoded(long start, int bytes, AudioFormat format) {
+        if (start == 0 || bytes <= 0 || !enabled) return;
+        long nanos = System.nanoTime() - start;
+        INSTANCE.decodeLatency.record(nanos);
+        INSTANCE.decodeNanos.add(nanos);
+        INSTANCE.decodedBytes.add(bytes);
+        float bytesPerSecond = format.getFrameRate() * format.getFrameSize();
+        if (bytesPerSecond > 0) {
+            INSTANCE.decodedAudioMicros.add((long) (bytes * 1_000_000.0 / bytesPerSecond));
+        }
+    }
+
+    /**
+     * La línea se vació entera antes de recibir el siguiente bloque
+     */
+    static void underrun() {
+        if (enabled) INSTANCE.underruns.increment();
+    }
+
+    static void error() {
+        if (enabled) INSTANCE.errors.increment();
+    }
+
+    /**
+     * Encola una tarea en el EDT y mide cuánto tarda en ejecutarse (una a la vez)
+     */
+    private void probeEdt() {
+        if (!edtProbePending.compareAndSet(false, true)) return;
+        final long posted = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            edtBlocking.record(System.nanoTime() - posted);
+            edtProbePending.set(false);
+        });
+    }
+
+    // =============== JMX Y RESUMEN EN DISCO ===============
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enable) {
+        if (enable && !enabled) {
+            start(snapshotFile, snapshotSeconds);
+        } else if (!enable) {
+            stop();
+        }
+    }
+
+    @Override
+    public HistogramSnapshot getTimeToFirstSample() {
+        return timeToFirstSample.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getSeekLatency() {
+        return seekLatency.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getDecodeLatency() {
+        return decodeLatency.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getEdtBlocking() {
+        return edtBlocking.snapshot();
+    }
+
+    @Override
+    public long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    @Override
+    public double getDecodeSpeed() {
+        long nanos = decodeNanos.sum();
+        return nanos == 0 ? 0 : decodedAudioMicros.sum() * 1000.0 / nanos;
+    }
+
+    @Override
+    public long getUnderruns() {
+        return underruns.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public void reset() {
+        timeToFirstSample.reset();
+        seekLatency.reset();
+        decodeLatency.reset();
+        edtBlocking.reset();
+        decodedBytes.reset();
+        decodedAudioMicros.reset();
+        decodeNanos.reset();
+        underruns.reset();
+        errors.reset();
+    }
+
+    /**
+     * Resumen actual en JSON
+     */
+    String toJson() {
+        return String.format(java.util.Locale.ROOT,
+            "{%n  \"timestamp\": %d,%n  \"enabled\": %b,%n"
+                + "  \"timeToFirstSample\": %s,%n  \"seekLatency\": %s,%n"
+                + "  \"decodeLatency\": %s,%n  \"edtBlocking\": %s,%n"
+                + "  \"decodedBytes\": %d,%n  \"decodeSpeed\": %.2f,%n"
+                + "  \"underruns\": %d,%n  \"errors\": %d%n}%n",
+            System.currentTimeMillis(), enabled,
+            getTimeToFirstSample().toJson(), getSeekLatency().toJson(),
+            getDecodeLatency().toJson(), getEdtBlocking().toJson(),
+            getDecodedBytes(), getDecodeSpeed(), getUnderruns(), getErrors());
+    }
+
+    /**
+     * Escribe el resumen en un temporal y lo renombra, para no dejar nunca un archivo a medias
+     */
+    void writeSnapshot(File target) throws IOException {
+        Path path = target.toPath();
+        File directory = target.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        Path temp = path.resolveSibling(target.getName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeSnapshotQuietly() {
+        File target = snapshotFile;
+        if (target == null) return;
+        try {
+            writeSnapshot(target);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la telemetría: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Reproductor de Música - Interfaz JMX de la telemetría
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Métricas de reproducción publicadas por JMX como reproductor1:type=Telemetria
+ * (visibles con JConsole o VisualVM). Las latencias van en microsegundos.
+ */
+public interface PlaybackTelemetryMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Desde que se pide reproducir una pista hasta que su primer bloque llega a la línea
+     */
+    HistogramSnapshot getTimeToFirstSample();
+
+    /**
+     * Desde que se pide un salto hasta que el audio de la nueva posición llega a la línea
+     */
+    HistogramSnapshot getSeekLatency();
+
+    /**
+     * Tiempo de cada lectura del decodificador
+     */
+    HistogramSnapshot getDecodeLatency();
+
+    /**
+     * Retraso con que el EDT atiende una tarea encolada (tiempo que estuvo ocupado)
+     */
+    HistogramSnapshot getEdtBlocking();
+
+    long getDecodedBytes();
+
+    /**
+     * Segundos de audio decodificados por segundo de decodificación
+     */
+    double getDecodeSpeed();
+
+    /**
+     * Veces que la línea de salida se quedó sin datos mientras sonaba
+     */
+    long getUnderruns();
+
+    long getErrors();
+
+    void reset();
+}
@@ -0,0 +1,267 @@
+/*
+ * Reproductor de Música - Lista de reproducción indexada
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.net.URL;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Lista de reproducción sobre un buffer con hueco (gap buffer).
+ * El acceso por índice es O(1) y las inserciones, eliminaciones y movimientos
+ * solo desplazan los elementos entre el hueco y la posición editada, que en el
+ * uso normal (agregar al final, subir/bajar, arrastrar) son pocos.
+ * Cada pista recibe un identificador estable que se conserva al moverla.
+ */
+public class Playlist extends AbstractList<URL> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private URL[] urls;
+    private int[] ids;
+    // Hueco libre [gapStart, gapEnd) dentro de los arreglos
+    private int gapStart;
+    private int gapEnd;
+    private int nextId = 1;
+
+    public Playlist() {
+        urls = new URL[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        gapStart = 0;
+        gapEnd = INITIAL_CAPACITY;
+    }
+
+    public Playlist(Collection<? extends URL> tracks) {
+        this();
+        addAll(tracks);
+    }
+
+    @Override
+    public int size() {
+        return urls.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public URL get(int index) {
+        checkIndex(index);
+        return urls[physical(index)];
+    }
+
+    @Override
+    public URL set(int index, URL url) {
+        checkIndex(index);
+        int slot = physical(index);
+        URL old = urls[slot];
+        urls[slot] = url;
+        ids[slot] = nextId++; // Otra pista: nuevo identificador
+        return old;
+    }
+
+    @Override
+    public void add(int index, URL url) {
+        checkPositionIndex(index);
+        insert(index, url, nextId++);
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends URL> tracks) {
+        checkPositionIndex(index);
+        if (tracks.isEmpty()) return false;
+
+        ensureGap(tracks.size());
+        moveGap(index);
+        for (URL url : tracks) {
+            urls[gapStart] = url;
+            ids[gapStart] = nextId++;
+            gapStart++;
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends URL> tracks) {
+        return addAll(size(), tracks);
+    }
+
+    @Override
+    public URL remove(int index) {
+        checkIndex(index);
+        moveGap(index);
+        URL removed = urls[gapEnd];
+        urls[gapEnd] = null;
+        gapEnd++;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Quita de una sola pasada las pistas en las posiciones indicadas (ordenadas de menor
+     * a mayor y sin repetir): O(n) en total en lugar de desplazar la lista por cada una
+     */
+    public void removeIndices(int[] sortedIndices, int count) {
+        if (count <= 0) return;
+        int size = size();
+        moveGap(size); // Todo el contenido contiguo al inicio
+        int kept = sortedIndices[0];
+        int next = 0;
+        for (int i = sortedIndices[0]; i < size; i++) {
+            if (next < count && sortedIndices[next] == i) {
+                next++;
+                continue;
+            }
+            urls[kept] = urls[i];
+            ids[kept] = ids[i];
+            kept++;
+        }
+        Arrays.fill(urls, kept, size, null);
+        gapStart = kept;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(urls, null);
+        gapStart = 0;
+        gapEnd = urls.length;
+        modCount++;
+    }
+
+    /**
+     * Inserta al inicio de la lista
+     */
+    public void addFirst(URL url) {
+        add(0, url);
+    }
+
+    /**
+     * Inserta al final de la lista
+     */
+    public void addLast(URL url) {
+        add(size(), url);
+    }
+
+    /**
+     * Mueve una pista de una posición a otra conservando su identificador
+     */
+    public void move(int fromIndex, int toIndex) {
+        checkIndex(fromIndex);
+        checkIndex(toIndex);
+        if (fromIndex == toIndex) return;
+
+        moveGap(fromIndex);
+        URL url = urls[gapEnd];
+        int id = ids[gapEnd];
+        urls[gapEnd] = null;
+        gapEnd++;
+        insert(toIndex, url, id);
+        modCount++;
+    }
+
+    /**
+     * Identificador estable de la pista en la posición indicada
+     */
+    public int getId(int index) {
+        checkIndex(index);
+        return ids[physical(index)];
+    }
+
+    /**
+     * Posición actual de la pista con ese identificador, o -1 si ya no está
+     */
+    public int indexOfId(int id) {
+        for (int i = 0; i < gapStart; i++) {
+            if (ids[i] == id) return i;
+        }
+        for (int i = gapEnd; i < ids.length; i++) {
+            if (ids[i] == id) return i - (gapEnd - gapStart);
+        }
+        return -1;
+    }
+
+    /**
+     * Como {@link #indexOfId(int)}, pero primero prueba la posición donde estaba la pista:
+     * O(1) mientras no se haya movido, y solo si se movió se recorre la lista
+     */
+    public int indexOfId(int id, int hint) {
+        if (hint >= 0 && hint < size() && getId(hint) == id) {
+            return hint;
+        }
+        return indexOfId(id);
+    }
+
+    // =============== GESTIÓN DEL HUECO ===============
+
+    private void insert(int index, URL url, int id) {
+        ensureGap(1);
+        moveGap(index);
+        urls[gapStart] = url;
+        ids[gapStart] = id;
+        gapStart++;
+    }
+
+    private int physical(int index) {
+        return index < gapStart ? index : index + (gapEnd - gapStart);
+    }
+
+    /**
+     * Desplaza el hueco para que empiece en la posición lógica indicada
+     */
+    private void moveGap(int index) {
+        if (index == gapStart) return;
+        int gapSize = gapEnd - gapStart;
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(urls, index, urls, gapEnd - count, count);
+            System.arraycopy(ids, index, ids, gapEnd - count, count);
+            Arrays.fill(urls, index, Math.min(index + gapSize, gapEnd - count), null);
+        } else {
+            int count = index - gapStart;
+            System.arraycopy(urls, gapEnd, urls, gapStart, count);
+            System.arraycopy(ids, gapEnd, ids, gapStart, count);
+            Arrays.fill(urls, Math.max(gapStart + count, gapEnd), gapEnd + count, null);
+        }
+        gapStart = index;
+        gapEnd = index + gapSize;
+    }
+
+    /**
+     * Garantiza un hueco de al menos required posiciones, creciendo 1.5x
+     */
+    private void ensureGap(int required) {
+        int gapSize = gapEnd - gapStart;
+        if (gapSize >= required) return;
+
+        int size = size();
+        int newCapacity = Math.max(urls.length + (urls.length >> 1), size + required);
+        URL[] newUrls = new URL[newCapacity];
+        int[] newIds = new int[newCapacity];
+        int tail = urls.length - gapEnd;
+        int newGapEnd = newCapacity - tail;
+
+        System.arraycopy(urls, 0, newUrls, 0, gapStart);
+        System.arraycopy(ids, 0, newIds, 0, gapStart);
+        System.arraycopy(urls, gapEnd, newUrls, newGapEnd, tail);
+        System.arraycopy(ids, gapEnd, newIds, newGapEnd, tail);
+
+        urls = newUrls;
+        ids = newIds;
+        gapEnd = newGapEnd;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Índice: " + index + ", tamaño: " + size());
+        }
+    }
+
+    private void checkPositionIndex(int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Posición: " + index + ", tamaño: " + size());
+        }
+    }
+}
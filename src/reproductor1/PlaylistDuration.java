@@ -0,0 +1,106 @@
+/*
+ * Reproductor de Música - Duración total de la lista
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Suma incremental de las duraciones de la lista: cada edición suma o resta solo
+ * las pistas afectadas, así el total no se recalcula recorriendo toda la lista.
+ * Para cada pista recuerda la duración con la que se contó, de modo que al llegar
+ * sus metadatos se aplica solo la diferencia y al quitarla se resta lo mismo que
+ * se sumó. Las pistas repetidas en la lista se cuentan una vez por copia.
+ */
+final class PlaylistDuration {
+    private static final long UNKNOWN = -1;
+
+    /**
+     * Duración contada para una pista y cuántas veces está en la lista
+     */
+    private static final class Counted {
+        long micros;
+        int copies;
+
+        Counted(long micros) {
+            this.micros = micros;
+        }
+    }
+
+    private final Map<URL, Counted> counted = new HashMap<>();
+    private long totalMicros = 0;
+    private int unknownTracks = 0;
+
+    /**
+     * Cuenta una pista agregada con los metadatos que haya ahora (null si aún no hay)
+     */
+    void add(URL track, TrackMetadata metadata) {
+        Counted entry = counted.get(track);
+        if (entry == null) {
+            entry = new Counted(durationOf(metadata));
+            counted.put(track, entry);
+        }
+        entry.copies++;
+        account(entry.micros, 1);
+    }
+
+    /**
+     * Descuenta una pista quitada de la lista
+     */
+    void remove(URL track) {
+        Counted entry = counted.get(track);
+        if (entry == null) return;
+        account(entry.micros, -1);
+        if (--entry.copies == 0) {
+            counted.remove(track);
+        }
+    }
+
+    /**
+     * Aplica la diferencia si los metadatos de una pista de la lista cambiaron
+     * desde que se contó; no hace nada si la pista ya no está
+     */
+    void update(URL track, TrackMetadata metadata) {
+        Counted entry = counted.get(track);
+        long micros = durationOf(metadata);
+        if (entry == null || entry.micros == micros) return;
+        account(entry.micros, -entry.copies);
+        entry.micros = micros;
+        account(micros, entry.copies);
+    }
+
+    void clear() {
+        counted.clear();
+        totalMicros = 0;
+        unknownTracks = 0;
+    }
+
+    /**
+     * Suma de las duraciones conocidas
+     */
+    long getTotalMicros() {
+        return totalMicros;
+    }
+
+    /**
+     * Pistas cuya duración todavía no se conoce
+     */
+    int getUnknownTracks() {
+        return unknownTracks;
+    }
+
+    private void account(long micros, int copies) {
+        if (micros == UNKNOWN) {
+            unknownTracks += copies;
+        } else {
+            totalMicros += micros * copies;
+        }
+    }
+
+    private static long durationOf(TrackMetadata metadata) {
+        return metadata != null && metadata.getDurationMicros() >= 0 ? metadata.getDurationMicros() : UNKNOWN;
+    }
+}
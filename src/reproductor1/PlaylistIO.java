@@ -0,0 +1,352 @@
+/*
+ * Reproductor de Música - Guardar y cargar listas de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Persistencia de listas de reproducción.
+ * El formato propio (.rpl) es binario: rutas UTF-8 con prefijo de longitud y,
+ * si se conocen, los metadatos en el mismo formato que {@link MetadataCache};
+ * se carga con un único mapeo en memoria. M3U/M3U8 y PLS se importan y exportan
+ * línea a línea, entregando cada pista al consumidor sin acumular el archivo.
+ */
+public final class PlaylistIO {
+    public static final String NATIVE_EXTENSION = ".rpl";
+
+    private static final int MAGIC = 0x52504C31; // "RPL1"
+    private static final byte ONLY_PATH = 0;
+    private static final byte WITH_METADATA = 1;
+
+    private PlaylistIO() {
+    }
+
+    /**
+     * Lista que se guarda al cerrar y se restaura al abrir (~/.reproductor/lista.rpl)
+     */
+    public static File getDefaultFile() {
+        return new File(new File(System.getProperty("user.home"), ".reproductor"), "lista" + NATIVE_EXTENSION);
+    }
+
+    /**
+     * Guarda en el formato indicado por la extensión (.rpl, .m3u, .m3u8 o .pls)
+     */
+    public static void guardar(File file, List<URL> tracks) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".m3u8")) {
+            exportarM3U(file, tracks, StandardCharsets.UTF_8);
+        } else if (name.endsWith(".m3u")) {
+            exportarM3U(file, tracks, StandardCharsets.ISO_8859_1);
+        } else if (name.endsWith(".pls")) {
+            exportarPLS(file, tracks);
+        } else {
+            guardarBinario(file, tracks);
+        }
+    }
+
+    /**
+     * Carga según la extensión, entregando cada pista a sink; devuelve cuántas se leyeron
+     */
+    public static int cargar(File file, Consumer<URL> sink) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".m3u8")) {
+            return importarM3U(file, StandardCharsets.UTF_8, sink);
+        } else if (name.endsWith(".m3u")) {
+            return importarM3U(file, detectM3UCharset(file), sink);
+        } else if (name.endsWith(".pls")) {
+            return importarPLS(file, sink);
+        }
+        return cargarBinario(file, sink);
+    }
+
+    // =============== FORMATO BINARIO ===============
+
+    /**
+     * Escribe a un temporal y lo reemplaza al final, para no dejar una lista a medias
+     */
+    public static void guardarBinario(File file, List<URL> tracks) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+        File temp = new File(parent, file.getName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+            MetadataCache cache = NodoLista.getMetadataCache();
+            out.writeInt(MAGIC);
+            out.writeInt(tracks.size());
+            ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            for (URL url : tracks) {
+                String path = NodoLista.getFileFromURL(url).getAbsolutePath();
+                MetadataCache.Entry cached = cache.peekEntry(path);
+
+                record.reset();
+                if (cached != null) {
+                    // Con la fecha y el tamaño con que se leyeron, para validarlos al cargar
+                    recordOut.writeByte(WITH_METADATA);
+                    recordOut.write(MetadataCache.encode(path, cached.modified, cached.size, cached.metadata));
+                } else {
+                    recordOut.writeByte(ONLY_PATH);
+                    MetadataCache.writeString(recordOut, path);
+                }
+                recordOut.flush();
+                out.writeInt(record.size());
+                record.writeTo(out);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lee la lista con un solo mapeo; los metadatos incluidos pasan a la caché
+     */
+    public static int cargarBinario(File file, Consumer<URL> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8) {
+                throw new IOException("Lista vacía o dañada: " + file.getName());
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("No es una lista del reproductor: " + file.getName());
+            }
+
+            MetadataCache cache = NodoLista.getMetadataCache();
+            int count = buffer.getInt(4);
+            int pos = 8;
+            int loaded = 0;
+            for (int i = 0; i < count && pos + 4 <= size; i++) {
+                int length = buffer.getInt(pos);
+                int body = pos + 4;
+                if (length < 3 || body + length > size) break; // Final truncado
+
+                String path = MetadataCache.readString(buffer, body + 1);
+                if (buffer.get(body) == WITH_METADATA) {
+                    MetadataCache.Entry entry = MetadataCache.decode(buffer, body + 1, body + length);
+                    if (entry != null && cache.peekEntry(path) == null) {
+                        cache.put(path, entry.modified, entry.size, entry.metadata);
+                    }
+                }
+                URL url = toURL(path);
+                if (url != null) {
+                    sink.accept(url);
+                    loaded++;
+                }
+                pos = body + length;
+            }
+            return loaded;
+        }
+    }
+
+    // =============== M3U / M3U8 ===============
+
+    /**
+     * Lee una línea a la vez: las que empiezan con # son comentarios o #EXTINF
+     */
+    public static int importarM3U(File file, Charset charset, Consumer<URL> sink) throws IOException {
+        File base = file.getAbsoluteFile().getParentFile();
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), charset)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (first) {
+                    line = stripBom(line);
+                    first = false;
+                }
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                URL url = resolve(base, line);
+                if (url != null) {
+                    sink.accept(url);
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Codificación de un .m3u: la que indique su BOM; si no tiene, UTF-8 cuando todo el
+     * archivo es UTF-8 válido (lo que escriben la mayoría de programas actuales) y si no
+     * Latin-1, la del formato original
+     */
+    static Charset detectM3UCharset(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            in.mark(3);
+            int b0 = in.read();
+            int b1 = in.read();
+            int b2 = in.read();
+            if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) return StandardCharsets.UTF_8;
+            if (b0 == 0xFE && b1 == 0xFF) return StandardCharsets.UTF_16BE;
+            if (b0 == 0xFF && b1 == 0xFE) return StandardCharsets.UTF_16LE;
+            in.reset();
+
+            // Validar de forma estricta sin acumular el archivo
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+            try (Reader reader = new InputStreamReader(in, decoder)) {
+                char[] chunk = new char[8 * 1024];
+                while (reader.read(chunk) >= 0) {
+                    // Solo se comprueba que decodifique
+                }
+                return StandardCharsets.UTF_8;
+            } catch (CharacterCodingException e) {
+                return StandardCharsets.ISO_8859_1;
+            }
+        }
+    }
+
+    /**
+     * Escribe sin sustituir caracteres: si una ruta o un título no cabe en la codificación
+     * (p. ej. Latin-1 en .m3u) falla y borra el archivo, en vez de dejar rutas con '?'
+     */
+    public static void exportarM3U(File file, List<URL> tracks, Charset charset) throws IOException {
+        CharsetEncoder encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), encoder))) {
+            writer.write("#EXTM3U\n");
+            for (URL url : tracks) {
+                File audioFile = NodoLista.getFileFromURL(url);
+                TrackMetadata metadata = NodoLista.metadatosEnCache(url);
+                long seconds = metadata != null && metadata.getDurationMicros() >= 0
+                    ? metadata.getDurationMicros() / 1_000_000L : -1;
+                writer.write("#EXTINF:" + seconds + "," + displayName(metadata, audioFile) + "\n");
+                writer.write(audioFile.getAbsolutePath());
+                writer.write('\n');
+            }
+        } catch (CharacterCodingException e) {
+            Files.deleteIfExists(file.toPath());
+            throw new IOException("La lista tiene nombres que no se pueden escribir en " + charset.name()
+                + "; guárdela como .m3u8", e);
+        }
+    }
+
+    // =============== PLS ===============
+
+    /**
+     * Toma las claves FileN= en el orden en que aparecen; el resto se ignora
+     */
+    public static int importarPLS(File file, Consumer<URL> sink) throws IOException {
+        File base = file.getAbsoluteFile().getParentFile();
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = stripBom(line).trim();
+                int equals = line.indexOf('=');
+                if (equals < 5 || !line.regionMatches(true, 0, "File", 0, 4)) continue;
+                if (!isDigits(line, 4, equals)) continue;
+                URL url = resolve(base, line.substring(equals + 1).trim());
+                if (url != null) {
+                    sink.accept(url);
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public static void exportarPLS(File file, List<URL> tracks) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("[playlist]\n");
+            int n = 1;
+            for (URL url : tracks) {
+                File audioFile = NodoLista.getFileFromURL(url);
+                TrackMetadata metadata = NodoLista.metadatosEnCache(url);
+                writer.write("File" + n + "=" + audioFile.getAbsolutePath() + "\n");
+                writer.write("Title" + n + "=" + displayName(metadata, audioFile) + "\n");
+                long seconds = metadata != null && metadata.getDurationMicros() >= 0
+                    ? metadata.getDurationMicros() / 1_000_000L : -1;
+                writer.write("Length" + n + "=" + seconds + "\n");
+                n++;
+            }
+            writer.write("NumberOfEntries=" + tracks.size() + "\n");
+            writer.write("Version=2\n");
+        }
+    }
+
+    // =============== AUXILIARES ===============
+
+    /**
+     * Convierte una entrada (ruta absoluta, relativa a la lista o URI file:) a la URL de la lista
+     */
+    private static URL resolve(File base, String entry) {
+        File audioFile;
+        if (entry.regionMatches(true, 0, "file:", 0, 5)) {
+            try {
+                audioFile = Paths.get(new URI(entry)).toFile();
+            } catch (Exception e) {
+                return null;
+            }
+        } else if (entry.contains("://")) {
+            return null; // Radios y otras URLs remotas no se reproducen
+        } else {
+            audioFile = new File(entry);
+            if (!audioFile.isAbsolute() && base != null) {
+                audioFile = new File(base, entry);
+            }
+        }
+        return toURL(audioFile.getAbsolutePath());
+    }
+
+    private static URL toURL(String path) {
+        try {
+            return NodoLista.convertToURL(path);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String displayName(TrackMetadata metadata, File audioFile) {
+        String name = metadata != null ? metadata.getDisplayName() : null;
+        return name != null ? name : audioFile.getName();
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    private static boolean isDigits(String text, int from, int to) {
+        if (from >= to) return false;
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(text.charAt(i))) return false;
+        }
+        return true;
+    }
+}
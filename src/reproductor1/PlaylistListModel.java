@@ -0,0 +1,94 @@
+/*
+ * Reproductor de Música - Modelo de JList respaldado por la lista de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.net.URL;
+import java.util.List;
+import java.util.function.Function;
+import javax.swing.AbstractListModel;
+
+/**
+ * Modelo de JList que lee directamente de la lista de reproducción.
+ * El texto "N. archivo" se calcula solo para las filas que la JList pinta,
+ * y tras cada edición se notifica únicamente el rango afectado en lugar de
+ * reconstruir el modelo completo.
+ */
+public class PlaylistListModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+    private final List<URL> tracks;
+    private final Function<URL, String> names;
+    // Tamaño que conocen los oyentes (JList) desde la última notificación
+    private int notifiedSize;
+
+    public PlaylistListModel(List<URL> tracks, Function<URL, String> names) {
+        this.tracks = tracks;
+        this.names = names;
+        this.notifiedSize = tracks.size();
+    }
+
+    /**
+     * Lista de pistas que muestra este modelo
+     */
+    public List<URL> getTracks() {
+        return tracks;
+    }
+
+    @Override
+    public int getSize() {
+        return tracks.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return (index + 1) + ". " + names.apply(tracks.get(index));
+    }
+
+    /**
+     * Se insertaron pistas en [from, to]; las siguientes cambian de número
+     */
+    public void fireTracksInserted(int from, int to) {
+        notifiedSize = tracks.size();
+        fireIntervalAdded(this, from, to);
+        if (to + 1 < notifiedSize) {
+            fireContentsChanged(this, to + 1, notifiedSize - 1);
+        }
+    }
+
+    /**
+     * Se eliminaron las pistas que ocupaban [from, to]; las siguientes cambian de número
+     */
+    public void fireTracksRemoved(int from, int to) {
+        notifiedSize = tracks.size();
+        fireIntervalRemoved(this, from, to);
+        if (from < notifiedSize) {
+            fireContentsChanged(this, from, notifiedSize - 1);
+        }
+    }
+
+    /**
+     * Una pista se movió de from a to: solo cambian las filas entre ambas
+     */
+    public void fireTrackMoved(int from, int to) {
+        fireContentsChanged(this, Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * Sincroniza con la lista tras cambios desconocidos (por ejemplo, vaciarla)
+     */
+    public void refresh() {
+        int size = tracks.size();
+        int oldSize = notifiedSize;
+        notifiedSize = size;
+        if (size < oldSize) {
+            fireIntervalRemoved(this, size, oldSize - 1);
+        } else if (size > oldSize) {
+            fireIntervalAdded(this, oldSize, size - 1);
+        }
+        int common = Math.min(size, oldSize);
+        if (common > 0) {
+            fireContentsChanged(this, 0, common - 1);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Reproductor de Música - Conversión de frecuencia de muestreo
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Remuestreador polifásico en streaming sobre muestras float intercaladas.
+ * El filtro es un sinc con ventana de Kaiser de {@value #TAPS} coeficientes, tabulado en
+ * {@value #PHASES} fases; entre dos fases vecinas los coeficientes se interpolan
+ * linealmente, así sirve para cualquier par de frecuencias (no solo razones pequeñas).
+ * Al bajar la frecuencia el corte se desplaza para no dejar pasar alias.
+ * <p>
+ * La posición avanza con aritmética entera exacta (numerador sobre la frecuencia de
+ * salida), de modo que no acumula deriva en pistas largas. Todos los arreglos se
+ * reservan al crearlo: escribir y leer bloques no reserva memoria.
+ */
+final class PolyphaseResampler {
+    static final int TAPS = 64;
+    static final int PHASES = 256;
+    private static final int HALF = TAPS / 2;
+    private static final double KAISER_BETA = 8.0;
+    // Margen bajo Nyquist para la banda de transición
+    private static final double PASSBAND = 0.95;
+
+    private final int channels;
+    private final long inRate;
+    private final long outRate;
+    // coefficients[fase * TAPS + j], con PHASES + 1 fases para interpolar la última
+    private final float[] coefficients = new float[(PHASES + 1) * TAPS];
+    private final float[] kernel = new float[TAPS]; // Coeficientes del frame en curso
+
+    private final float[] window;      // Entrada intercalada pendiente
+    private final int capacityFrames;
+    private int frames;                // Frames válidos en window
+    private int position;              // Frame de entrada en que cae la próxima salida
+    private long fraction;             // Parte fraccionaria de la posición, sobre outRate
+
+    /**
+     * maxWriteFrames es el bloque de entrada más grande que se escribirá de una vez
+     */
+    PolyphaseResampler(int channels, float inRate, float outRate, int maxWriteFrames) {
+        this.channels = channels;
+        this.inRate = Math.round(inRate);
+        this.outRate = Math.round(outRate);
+        this.capacityFrames = maxWriteFrames + TAPS;
+        this.window = new float[capacityFrames * channels];
+
+        // Corte en ciclos por muestra de entrada; al reducir la frecuencia, bajo la nueva Nyquist
+        double cutoff = 0.5 * PASSBAND * Math.min(1.0, (double) this.outRate / this.inRate);
+        double norm = besselI0(KAISER_BETA);
+        for (int phase = 0; phase <= PHASES; phase++) {
+            double offset = (double) phase / PHASES;
+            for (int j = 0; j < TAPS; j++) {
+                double t = j - HALF + 1 - offset; // Distancia a la muestra de salida
+                double x = t / HALF;
+                double kaiser = Math.abs(x) >= 1 ? 0 : besselI0(KAISER_BETA * Math.sqrt(1 - x * x)) / norm;
+                coefficients[phase * TAPS + j] = (float) (2 * cutoff * sinc(2 * cutoff * t) * kaiser);
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Vacía el estado (tras un salto): la siguiente entrada se trata como inicio de pista
+     */
+    void reset() {
+        // HALF - 1 frames de silencio delante: la primera salida cae sobre el primer frame real
+        frames = HALF - 1;
+        java.util.Arrays.fill(window, 0, frames * channels, 0f);
+        position = HALF - 1;
+        fraction = 0;
+    }
+
+    /**
+     * Frames de entrada que se pueden escribir ahora
+     */
+    int writableFrames() {
+        return capacityFrames - frames + Math.max(0, position - HALF + 1);
+    }
+
+    /**
+     * Añade frames de entrada (intercalados); count no debe superar {@link #writableFrames()}
+     */
+    void write(float[] input, int count) {
+        if (frames + count > capacityFrames) {
+            compact();
+        }
+        System.arraycopy(input, 0, window, frames * channels, count * channels);
+        frames += count;
+    }
+
+    /**
+     * Añade el silencio que hace falta para que salga la cola del filtro al final de la pista
+     */
+    void flush() {
+        if (frames + HALF > capacityFrames) {
+            compact();
+        }
+        java.util.Arrays.fill(window, frames * channels, (frames + HALF) * channels, 0f);
+        frames += HALF;
+    }
+
+    /**
+     * Genera hasta maxFrames frames de salida con la entrada disponible; devuelve cuántos
+     */
+    int read(float[] output, int maxFrames) {
+        int produced = 0;
+        int out = 0;
+        while (produced < maxFrames && position + HALF < frames) {
+            // Coeficientes de esta posición: interpolación entre las dos fases más cercanas
+            long scaled = fraction * PHASES;
+            int phase = (int) (scaled / outRate);
+            float between = (float) (scaled - phase * outRate) / outRate;
+            int base = phase * TAPS;
+            for (int j = 0; j < TAPS; j++) {
+                float low = coefficients[base + j];
+                kernel[j] = low + (coefficients[base + TAPS + j] - low) * between;
+            }
+
+            int first = (position - HALF + 1) * channels;
+            for (int c = 0; c < channels; c++) {
+                float sum = 0f;
+                int index = first + c;
+                for (int j = 0; j < TAPS; j++) {
+                    sum += window[index] * kernel[j];
+                    index += channels;
+                }
+                output[out++] = sum;
+            }
+            produced++;
+
+            fraction += inRate;
+            while (fraction >= outRate) {
+                fraction -= outRate;
+                position++;
+            }
+        }
+        return produced;
+    }
+
+    /**
+     * Descarta la entrada que ya no necesita ningún coeficiente
+     */
+    private void compact() {
+        int drop = Math.max(0, Math.min(frames, position - HALF + 1));
+        if (drop == 0) return;
+        System.arraycopy(window, drop * channels, window, 0, (frames - drop) * channels);
+        frames -= drop;
+        position -= drop;
+    }
+
+    private static double sinc(double x) {
+        if (x == 0) return 1.0;
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+
+    // Función de Bessel modificada de orden 0 (serie de potencias)
+    private static double besselI0(double x) {
+        double sum = 1.0;
+        double term = 1.0;
+        double half = x / 2;
+        for (int k = 1; k < 50; k++) {
+            term *= (half / k) * (half / k);
+            sum += term;
+            if (term < sum * 1e-12) break;
+        }
+        return sum;
+    }
+}
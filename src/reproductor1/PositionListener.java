@@ -0,0 +1,14 @@
+/*
+ * Reproductor de Música - Oyente de la posición de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Recibe la posición de la pista que suena. A diferencia de {@link PlaybackListener}
+ * se invoca ya en el EDT, y solo cuando la posición o la duración cambiaron
+ */
+public interface PositionListener {
+
+    void positionChanged(long positionMicros, long lengthMicros);
+}
@@ -0,0 +1,128 @@
+/*
+ * Reproductor de Música - Publicación de la posición de reproducción
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Lee la posición del reproductor a un ritmo fijo desde un hilo propio y la
+ * entrega a la interfaz. Cada lectura se guarda en un atómico; en el EDT hay
+ * como mucho una tarea pendiente, que al ejecutarse toma el último valor, así
+ * un EDT ocupado recibe una sola actualización en lugar de una cola de ellas.
+ * <p>
+ * Si la posición no cambió (pausa, sin pista) no se publica nada, y suspendido
+ * (ventana minimizada) el hilo ni siquiera despierta.
+ */
+final class PositionPublisher {
+    static final long DEFAULT_PERIOD_MS = 50;
+
+    private final String threadName;
+    private final LongSupplier position;
+    private final LongSupplier length;
+    private final List<PositionListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Última lectura, la que recoge la tarea del EDT
+    private final AtomicLong positionMicros = new AtomicLong(-1);
+    private final AtomicLong lengthMicros = new AtomicLong(-1);
+    private final AtomicBoolean deliveryPending = new AtomicBoolean();
+    private final Runnable deliver = this::deliver;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+    private long periodMillis = DEFAULT_PERIOD_MS;
+    private boolean suspended = false;
+
+    PositionPublisher(String threadName, LongSupplier position, LongSupplier length) {
+        this.threadName = threadName;
+        this.position = position;
+        this.length = length;
+    }
+
+    synchronized void addListener(PositionListener listener) {
+        listeners.add(listener);
+        reschedule();
+    }
+
+    synchronized void removeListener(PositionListener listener) {
+        listeners.remove(listener);
+        reschedule();
+    }
+
+    /**
+     * Milisegundos entre lecturas de la posición
+     */
+    synchronized void setPeriodMillis(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Intervalo no válido: " + millis);
+        }
+        periodMillis = millis;
+        reschedule();
+    }
+
+    synchronized long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * Deja de leer y publicar hasta reanudar; al reanudar se publica enseguida
+     */
+    synchronized void setSuspended(boolean suspend) {
+        suspended = suspend;
+        if (!suspend) {
+            positionMicros.set(-1); // Forzar la primera publicación
+        }
+        reschedule();
+    }
+
+    private void reschedule() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        if (suspended || listeners.isEmpty()) return;
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        task = scheduler.scheduleWithFixedDelay(this::sample, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hilo de posición: guarda la lectura y, si cambió, encola una entrega si no hay otra pendiente
+     */
+    private void sample() {
+        long newPosition = position.getAsLong();
+        long newLength = length.getAsLong();
+        boolean changed = positionMicros.getAndSet(newPosition) != newPosition
+            | lengthMicros.getAndSet(newLength) != newLength;
+        if (changed && deliveryPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(deliver);
+        }
+    }
+
+    /**
+     * EDT: entrega la lectura más reciente
+     */
+    private void deliver() {
+        deliveryPending.set(false);
+        long currentPosition = positionMicros.get();
+        long currentLength = lengthMicros.get();
+        for (PositionListener listener : listeners) {
+            listener.positionChanged(currentPosition, currentLength);
+        }
+    }
+}
@@ -15,8 +15,16 @@ public class Reproductor1 {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        // TODO code application logic here
-        new VentanaPrincipal().setVisible(true);
+        if (Boolean.getBoolean("reproductor.cds.entrenamiento")) {
+            // Entrenamiento del archivo CDS: si la ventana no llega a abrirse (sin pantalla) se
+            // sale con error para que "ant jar" descarte el archivo
+            Thread.setDefaultUncaughtExceptionHandler((thread, error) -> {
+                error.printStackTrace();
+                System.exit(1);
+            });
+        }
+        // La ventana se crea en el EDT; la lista guardada se carga cuando ya es visible
+        javax.swing.SwingUtilities.invokeLater(() -> new VentanaPrincipal().setVisible(true));
     }
     
 }
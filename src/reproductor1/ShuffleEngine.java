@@ -0,0 +1,250 @@
+/*
+ * Reproductor de Música - Motor de reproducción aleatoria sin repeticiones
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Orden aleatorio por ciclos sobre arreglos de int, sin objetos Integer.
+ * Es un Fisher–Yates perezoso: el arreglo order se divide en la parte ya
+ * repartida [0, cursor) y la pendiente [cursor, size); cada avance elige al azar
+ * una pista pendiente y la intercambia a la posición del cursor, en O(1).
+ * El estado "reproducida" es pertenecer a la parte repartida (position[pista] &lt; cursor),
+ * así que insertar o quitar pistas no obliga a volver a barajar el ciclo.
+ */
+public class ShuffleEngine {
+    private final Random random;
+    private int[] order = new int[16];     // order[posición] = pista
+    private int[] position = new int[16];  // position[pista] = posición en order
+    private int size = 0;
+    private int cursor = 0;
+    // La pista en order[cursor] ya fue sorteada (por peekNext) y será la siguiente
+    private boolean nextDrawn = false;
+
+    public ShuffleEngine() {
+        this(new Random());
+    }
+
+    public ShuffleEngine(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Reinicia con pistas 0..size-1 y ninguna reproducida
+     */
+    public void reset(int newSize) {
+        ensureCapacity(newSize);
+        for (int i = 0; i < newSize; i++) {
+            order[i] = i;
+            position[i] = i;
+        }
+        size = newSize;
+        cursor = 0;
+        nextDrawn = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pistas ya reproducidas en el ciclo actual
+     */
+    public int playedCount() {
+        return cursor;
+    }
+
+    public boolean isPlayed(int track) {
+        return track >= 0 && track < size && position[track] < cursor;
+    }
+
+    /**
+     * Indica si ya se reprodujeron todas las pistas del ciclo
+     */
+    public boolean isCycleComplete() {
+        return cursor >= size;
+    }
+
+    /**
+     * Comienza un ciclo nuevo con todas las pistas disponibles (sin barajar de antemano)
+     */
+    public void startNewCycle() {
+        cursor = 0;
+        nextDrawn = false;
+    }
+
+    /**
+     * Marca como reproducida una pista elegida fuera del orden aleatorio
+     */
+    public void markPlayed(int track) {
+        if (track < 0 || track >= size || position[track] < cursor) return;
+        swap(position[track], cursor);
+        cursor++;
+        nextDrawn = false;
+    }
+
+    /**
+     * Sortea la siguiente pista sin avanzar; -1 si el ciclo está completo
+     */
+    public int peekNext() {
+        if (cursor >= size) return -1;
+        if (!nextDrawn) {
+            swap(cursor, cursor + random.nextInt(size - cursor));
+            nextDrawn = true;
+        }
+        return order[cursor];
+    }
+
+    /**
+     * Avanza a la siguiente pista aleatoria no reproducida; -1 si el ciclo está completo
+     */
+    public int next() {
+        int track = peekNext();
+        if (track >= 0) {
+            cursor++;
+            nextDrawn = false;
+        }
+        return track;
+    }
+
+    /**
+     * Retrocede una pista en el orden del ciclo: la actual vuelve a quedar pendiente
+     * (y será la siguiente). Devuelve la pista anterior o -1 si no hay
+     */
+    public int previous() {
+        if (cursor <= 1) return -1;
+        cursor--;
+        nextDrawn = true;
+        return order[cursor - 1];
+    }
+
+    // =============== EDICIONES INCREMENTALES DE LA LISTA ===============
+
+    /**
+     * Se insertaron count pistas a partir de index: quedan pendientes en el ciclo actual
+     */
+    public void insert(int index, int count) {
+        if (count <= 0) return;
+        ensureCapacity(size + count);
+
+        // Desplazar los números de las pistas posteriores
+        for (int slot = 0; slot < size; slot++) {
+            if (order[slot] >= index) {
+                order[slot] += count;
+            }
+        }
+        for (int slot = 0; slot < size; slot++) {
+            position[order[slot]] = slot;
+        }
+
+        for (int i = 0; i < count; i++) {
+            order[size] = index + i;
+            position[index + i] = size;
+            size++;
+        }
+    }
+
+    public void insert(int index) {
+        insert(index, 1);
+    }
+
+    /**
+     * Se eliminó la pista en index; el resto del ciclo se conserva
+     */
+    public void remove(int index) {
+        if (index < 0 || index >= size) return;
+
+        int slot = position[index];
+        if (slot < cursor) {
+            // Reproducida: llevarla al final de la parte repartida y achicarla
+            swap(slot, cursor - 1);
+            slot = cursor - 1;
+            cursor--;
+            nextDrawn = false;
+        } else if (slot == cursor) {
+            nextDrawn = false;
+        }
+        swap(slot, size - 1);
+        size--;
+
+        for (int s = 0; s < size; s++) {
+            if (order[s] > index) {
+                order[s]--;
+            }
+            position[order[s]] = s;
+        }
+    }
+
+    /**
+     * Se eliminaron de una vez las pistas indicadas (ordenadas de menor a mayor y sin
+     * repetir). Una sola pasada O(n log k), en lugar de recorrer todo por cada una
+     */
+    public void removeAll(int[] sortedIndices, int count) {
+        if (count <= 0) return;
+        int kept = 0;
+        int keptPlayed = 0;
+        boolean drawnKept = false;
+        for (int s = 0; s < size; s++) {
+            int track = order[s];
+            int before = Arrays.binarySearch(sortedIndices, 0, count, track);
+            if (before >= 0) continue; // Eliminada
+            if (s < cursor) {
+                keptPlayed++;
+            } else if (s == cursor) {
+                drawnKept = nextDrawn;
+            }
+            // Su número baja tantas posiciones como eliminadas haya antes que ella
+            order[kept++] = track - (-before - 1);
+        }
+        size = kept;
+        cursor = keptPlayed;
+        nextDrawn = drawnKept;
+        for (int s = 0; s < size; s++) {
+            position[order[s]] = s;
+        }
+    }
+
+    /**
+     * La pista en from pasó a la posición to (las intermedias se desplazan una posición)
+     */
+    public void move(int from, int to) {
+        if (from == to || from < 0 || to < 0 || from >= size || to >= size) return;
+
+        for (int s = 0; s < size; s++) {
+            int track = order[s];
+            if (track == from) {
+                track = to;
+            } else if (from < to && track > from && track <= to) {
+                track--;
+            } else if (from > to && track >= to && track < from) {
+                track++;
+            }
+            order[s] = track;
+            position[track] = s;
+        }
+    }
+
+    private void swap(int a, int b) {
+        if (a == b) return;
+        int trackA = order[a];
+        int trackB = order[b];
+        order[a] = trackB;
+        order[b] = trackA;
+        position[trackB] = a;
+        position[trackA] = b;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= order.length) return;
+        int newCapacity = Math.max(capacity, order.length + (order.length >> 1));
+        int[] newOrder = new int[newCapacity];
+        int[] newPosition = new int[newCapacity];
+        System.arraycopy(order, 0, newOrder, 0, size);
+        System.arraycopy(position, 0, newPosition, 0, size);
+        order = newOrder;
+        position = newPosition;
+    }
+}
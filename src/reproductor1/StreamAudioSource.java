@@ -0,0 +1,206 @@
+/*
+ * Reproductor de Música - Fuente de audio basada en AudioInputStream
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import javax.sound.sampled.*;
+import javax.sound.sampled.spi.AudioFileReader;
+import javax.sound.sampled.spi.FormatConversionProvider;
+
+/**
+ * Fuente de audio que decodifica en streaming a través de javax.sound.sampled.
+ * Los formatos comprimidos (MP3) se convierten a PCM de 16 bits bloque a bloque.
+ * En MP3, saltar usa {@link Mp3SeekIndex}: el decodificador se abre directamente
+ * en la trama adecuada en lugar de decodificar todo lo anterior.
+ * <p>
+ * Con un lector y un conversor propios (los de {@link Mp3Decoder}) se usan esos en
+ * lugar de los proveedores que AudioSystem encuentra en el classpath.
+ */
+public class StreamAudioSource implements AudioSource {
+    private final File file;
+    private final AudioFileReader reader;             // null: AudioSystem
+    private final FormatConversionProvider converter; // null: AudioSystem
+    private AudioInputStream stream;
+    private AudioFormat format;
+    private long lengthMicros = -1;
+    private boolean mpeg;
+
+    private StreamAudioSource(File file, AudioFileReader reader, FormatConversionProvider converter) {
+        this.file = file;
+        this.reader = reader;
+        this.converter = converter;
+    }
+
+    /**
+     * Abre el archivo y prepara la decodificación sin leer todavía ninguna muestra
+     */
+    public static StreamAudioSource open(File file) throws UnsupportedAudioFileException, IOException {
+        return open(file, null, null);
+    }
+
+    /**
+     * Igual que {@link #open(File)} con un lector y un conversor concretos
+     */
+    static StreamAudioSource open(File file, AudioFileReader reader, FormatConversionProvider converter)
+            throws UnsupportedAudioFileException, IOException {
+        StreamAudioSource source = new StreamAudioSource(file, reader, converter);
+        source.stream = source.openStream();
+        source.format = source.stream.getFormat();
+        return source;
+    }
+
+    /**
+     * Abre el flujo decodificado desde el inicio del archivo
+     */
+    private AudioInputStream openStream() throws UnsupportedAudioFileException, IOException {
+        AudioInputStream baseStream = reader != null
+            ? reader.getAudioInputStream(file)
+            : AudioSystem.getAudioInputStream(file);
+        AudioFormat baseFormat = baseStream.getFormat();
+
+        if (isPcm(baseFormat)) {
+            long frames = baseStream.getFrameLength();
+            if (frames != AudioSystem.NOT_SPECIFIED && baseFormat.getFrameRate() > 0) {
+                lengthMicros = (long) (frames * 1000000L / baseFormat.getFrameRate());
+            }
+            return baseStream;
+        }
+
+        mpeg = baseFormat.getEncoding().toString().startsWith("MPEG");
+        return decode(baseStream);
+    }
+
+    /**
+     * Convierte un flujo comprimido a PCM de 16 bits con signo
+     */
+    private AudioInputStream decode(AudioInputStream baseStream) {
+        AudioFormat baseFormat = baseStream.getFormat();
+        // Crear formato PCM decodificado (MP3 y otros formatos comprimidos)
+        AudioFormat decodedFormat = new AudioFormat(
+            AudioFormat.Encoding.PCM_SIGNED,
+            baseFormat.getSampleRate(),
+            16,
+            baseFormat.getChannels(),
+            baseFormat.getChannels() * 2,
+            baseFormat.getSampleRate(),
+            false
+        );
+
+        // La duración del MP3 la publica el lector de mp3spi a partir de las cabeceras
+        if (lengthMicros < 0) {
+            try {
+                AudioFileFormat fileFormat = reader != null
+                    ? reader.getAudioFileFormat(file)
+                    : AudioSystem.getAudioFileFormat(file);
+                Map<String, Object> properties = fileFormat.properties();
+                Object duration = properties.get("duration");
+                if (duration instanceof Long) {
+                    lengthMicros = (Long) duration;
+                }
+            } catch (Exception e) {
+                // Duración desconocida hasta llegar al final del flujo
+            }
+        }
+
+        return converter != null
+            ? converter.getAudioInputStream(decodedFormat, baseStream)
+            : AudioSystem.getAudioInputStream(decodedFormat, baseStream);
+    }
+
+    private static boolean isPcm(AudioFormat format) {
+        return AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+            || AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding());
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return stream.read(buffer, offset, length);
+    }
+
+    @Override
+    public long getLengthMicros() {
+        if (mpeg) {
+            // El recorrido de cabeceras da la duración exacta, también en VBR sin cabecera Xing
+            Mp3SeekIndex index = Mp3SeekIndex.cached(file);
+            if (index != null) {
+                return index.getDurationMicros();
+            }
+        }
+        return lengthMicros;
+    }
+
+    @Override
+    public long seekMicros(long micros) throws IOException {
+        if (mpeg) {
+            Mp3SeekIndex index = Mp3SeekIndex.forFile(file);
+            if (index != null && index.getFrameCount() > 0) {
+                Mp3SeekIndex.SeekPoint point = index.locate(micros);
+                seekMpeg(point);
+                return point.getMicros();
+            }
+        }
+
+        // Reabrir y descartar hasta la posición pedida, alineado a frame
+        stream.close();
+        try {
+            stream = openStream();
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        int frameSize = format.getFrameSize();
+        long frames = (long) (micros / 1000000.0 * format.getFrameRate());
+        long bytesToSkip = frames * frameSize;
+        while (bytesToSkip > 0) {
+            long skipped = stream.skip(bytesToSkip);
+            if (skipped <= 0) break;
+            bytesToSkip -= skipped;
+        }
+        return (long) ((frames - bytesToSkip / frameSize) * 1000000L / format.getFrameRate());
+    }
+
+    /**
+     * Abre el decodificador en la trama indicada y descarta las muestras previas a la posición
+     */
+    private void seekMpeg(Mp3SeekIndex.SeekPoint point) throws IOException {
+        stream.close();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            channel.position(point.getOffset());
+            InputStream input = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            stream = decode(reader != null
+                ? reader.getAudioInputStream(input)
+                : AudioSystem.getAudioInputStream(input));
+        } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        }
+
+        long bytesToDiscard = point.getDiscardFrames() * format.getFrameSize();
+        byte[] scratch = new byte[(int) Math.min(bytesToDiscard, 16 * 1024)];
+        while (bytesToDiscard > 0) {
+            int read = stream.read(scratch, 0, (int) Math.min(scratch.length, bytesToDiscard));
+            if (read < 0) break;
+            bytesToDiscard -= read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,735 @@
+/*
+ * Reproductor de Música - Motor de reproducción en streaming
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sound.sampled.*;
+
+/**
+ * Motor de reproducción basado en SourceDataLine.
+ * Un hilo decodifica la fuente hacia un buffer circular de tamaño fijo y otro hilo
+ * alimenta la línea de salida desde ese buffer, así la memoria no depende de la
+ * duración de la pista y el primer sonido llega en cuanto hay un bloque decodificado.
+ * Si se prepara la siguiente pista con {@link #prepareNext(AudioSource, URL)} y comparte
+ * formato con la actual, el decodificador la encadena en el mismo buffer y la misma línea
+ * sin ningún silencio entre ambas. Al cambiar de pista la línea no se cierra: una pista con
+ * el mismo formato reutiliza la que ya estaba abierta ({@link OutputLinePool}).
+ * Con un fundido configurado ({@link #setCrossfadeMicros(long)})
+ * la siguiente empieza antes de que acabe la actual y ambas se mezclan en ese mismo buffer.
+ */
+public class StreamingEngine {
+    private static final int RING_BUFFER_BYTES = 256 * 1024;
+    private static final int CHUNK_BYTES = 8 * 1024;
+    private static final int LINE_BUFFER_MILLIS = 250;
+    private static final long JOIN_TIMEOUT_MS = 1000;
+    private static final long NEXT_TRACK_POLL_MS = 20;
+    public static final long MAX_CROSSFADE_MICROS = 12_000_000L;
+
+    // Se reutilizan en cada arranque de los hilos, salvo que uno anterior siga vivo
+    private Buffers buffers = new Buffers();
+    private boolean buffersInUse = false;
+    private final Object pauseLock = new Object();
+    private final Object nextLock = new Object();
+
+    private final List<PlaybackListener> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Buffer circular y bloques de trabajo que usa un par de hilos de decodificación y salida
+     */
+    private static final class Buffers {
+        final AudioRingBuffer ring = new AudioRingBuffer(RING_BUFFER_BYTES);
+        final byte[] decodeChunk = new byte[CHUNK_BYTES];
+        final byte[] feedChunk = new byte[CHUNK_BYTES];
+        final byte[] fadeChunk = new byte[CHUNK_BYTES];
+        // Los hilos que los usan ya se detuvieron: uno rezagado no debe tocar nada más
+        volatile boolean retired = false;
+    }
+
+    /**
+     * Pista abierta en el motor junto con la URL que la identifica y su corrección de sonoridad
+     */
+    private static final class Track {
+        final AudioSource source;
+        final URL url;
+        final float gain; // Lineal; se aplica al decodificar, antes de cualquier mezcla
+
+        Track(AudioSource source, URL url, float gainDb) {
+            this.source = source;
+            this.url = url;
+            this.gain = gainDb == 0f ? 1f : GainStage.dbToLinear(gainDb);
+        }
+    }
+
+    // Pista que suena, pista que lee el decodificador y pista preparada para encadenar
+    private volatile Track playingTrack;
+    private volatile Track decodingTrack;
+    private final AtomicReference<Track> nextTrack = new AtomicReference<>();
+    // Pista que ya se escribió en la línea pero todavía no empezó a sonar
+    private volatile Track pendingTrack;
+    // Pista saliente que el decodificador sigue leyendo para mezclarla durante el fundido
+    private volatile Track fadingTrack;
+    private volatile long crossfadeMicros = 0;
+    private long decodeStartMicros = 0;
+    private volatile long pendingStartFrame = 0;
+    private long framesWritten = 0;
+    private long writeOriginFrame = 0;
+
+    private SourceDataLine line;
+    // Las líneas se conservan abiertas entre pistas para no volver a pedirlas al mezclador
+    private final OutputLinePool linePool = new OutputLinePool();
+    private Thread decodeThread;
+    private Thread feedThread;
+
+    private volatile boolean playing = false;
+    private volatile boolean paused = false;
+    private volatile boolean ended = false;
+    private volatile long baseMicros = 0;
+    private volatile long baseLineFrame = 0;
+    private volatile long endMicros = 0;
+    // Volumen por software: se conserva entre pistas y no depende de los controles de la línea
+    private final GainStage gain = new GainStage();
+
+    /**
+     * Comienza a reproducir la fuente indicada, deteniendo la anterior.
+     * Si la línea no se puede abrir la fuente se cierra y se propaga la excepción
+     */
+    public void play(AudioSource newSource, URL url) throws LineUnavailableException {
+        play(newSource, url, 0f);
+    }
+
+    /**
+     * Como {@link #play(AudioSource, URL)}, con una ganancia propia de la pista en dB
+     */
+    public synchronized void play(AudioSource newSource, URL url, float gainDb) throws LineUnavailableException {
+        stop();
+
+        AudioFormat format = newSource.getFormat();
+        SourceDataLine newLine;
+        try {
+            newLine = linePool.acquire(format, lineBufferBytes(format));
+        } catch (LineUnavailableException | RuntimeException e) {
+            closeQuietly(newSource);
+            throw e;
+        }
+
+        playingTrack = new Track(newSource, url, gainDb);
+        decodingTrack = playingTrack;
+        line = newLine;
+        gain.reset();
+
+        decodeStartMicros = 0;
+        baseMicros = 0;
+        baseLineFrame = line.getLongFramePosition();
+        endMicros = 0;
+        ended = false;
+        paused = false;
+        playing = true;
+
+        line.start();
+        startThreads();
+    }
+
+    /**
+     * Prepara la pista que sonará a continuación sin pausa.
+     * Sustituye (y cierra) cualquier pista preparada antes
+     */
+    public void prepareNext(AudioSource nextSource, URL url) {
+        prepareNext(nextSource, url, 0f);
+    }
+
+    /**
+     * Como {@link #prepareNext(AudioSource, URL)}, con una ganancia propia de la pista en dB
+     */
+    public void prepareNext(AudioSource nextSource, URL url, float gainDb) {
+        Track previous = nextTrack.getAndSet(new Track(nextSource, url, gainDb));
+        if (previous != null) {
+            closeQuietly(previous.source);
+        }
+        synchronized (nextLock) {
+            nextLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Descarta la pista preparada para encadenar, si la hay
+     */
+    public void cancelNext() {
+        Track previous = nextTrack.getAndSet(null);
+        if (previous != null) {
+            closeQuietly(previous.source);
+        }
+    }
+    
+    public void addPlaybackListener(PlaybackListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removePlaybackListener(PlaybackListener listener) {
+        listeners.remove(listener);
+    }
+    
+    private void fireEvent(PlaybackEvent.Type type, URL url) {
+        PlaybackEvent event = new PlaybackEvent(type, url);
+        for (PlaybackListener listener : listeners) {
+            try {
+                listener.playbackEvent(event);
+            } catch (RuntimeException e) {
+                System.err.println("Error en oyente de reproducción: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pausa la salida conservando los datos pendientes en la línea
+     */
+    public synchronized void pause() {
+        if (line != null && playing && !paused) {
+            paused = true;
+            line.stop();
+        }
+    }
+
+    /**
+     * Reanuda la salida desde el punto exacto en que se pausó
+     */
+    public synchronized void resume() {
+        if (line != null && playing && paused) {
+            line.start();
+            synchronized (pauseLock) {
+                paused = false;
+                pauseLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Detiene la reproducción y libera la fuente; la línea queda abierta para reutilizarla
+     */
+    public synchronized void stop() {
+        Track stopped = playingTrack;
+        boolean wasActive = playing && !ended;
+        playing = false;
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+        Thread stuck = stopThreads();
+
+        if (line != null) {
+            linePool.release(line); // Detenida y vacía, pero abierta para la próxima pista
+            line = null;
+        }
+        Track current = playingTrack;
+        Track decoding = decodingTrack;
+        Track pending = pendingTrack;
+        Track fading = fadingTrack;
+        List<AudioSource> sources = new ArrayList<>(4);
+        if (current != null) sources.add(current.source);
+        if (pending != null && pending != current) sources.add(pending.source);
+        if (decoding != null && decoding != current && decoding != pending) sources.add(decoding.source);
+        if (fading != null && fading != current) sources.add(fading.source);
+        closeAfter(stuck, sources);
+        playingTrack = null;
+        decodingTrack = null;
+        pendingTrack = null;
+        fadingTrack = null;
+        cancelNext();
+        ended = false;
+        
+        if (stopped != null && wasActive) {
+            fireEvent(PlaybackEvent.Type.STOP, stopped.url);
+        }
+    }
+
+    /**
+     * Detiene la reproducción y cierra también las líneas de salida que se conservaban abiertas
+     */
+    public synchronized void close() {
+        stop();
+        linePool.closeAll();
+    }
+
+    /**
+     * Salta a la posición indicada; el estado de pausa se conserva
+     */
+    public synchronized void seek(long micros) {
+        Track current = playingTrack;
+        if (current == null || line == null) return;
+
+        // El salto mueve la fuente: esperar a que el decodificador anterior la suelte del todo
+        awaitExit(stopThreads());
+        
+        // Si ya se estaba decodificando la siguiente pista, devolverla a la espera desde el inicio
+        Track decoding = decodingTrack;
+        if (decoding != null && decoding != current) {
+            try {
+                decoding.source.seekMicros(0);
+                if (!nextTrack.compareAndSet(null, decoding)) {
+                    closeQuietly(decoding.source);
+                }
+            } catch (IOException e) {
+                closeQuietly(decoding.source);
+            }
+        }
+        // Fundido a medias: si la saliente ya no es la que suena, se descarta
+        Track fading = fadingTrack;
+        if (fading != null && fading != current) {
+            closeQuietly(fading.source);
+        }
+        fadingTrack = null;
+        decodingTrack = current;
+        pendingTrack = null;
+        
+        long reached = micros;
+        try {
+            // La línea de tiempo sigue la posición real, no la pedida (MP3 con tabla TOC)
+            reached = current.source.seekMicros(micros);
+        } catch (IOException e) {
+            System.err.println("Error al saltar en la pista: " + e.getMessage());
+        }
+        line.flush();
+
+        decodeStartMicros = reached;
+        baseMicros = reached;
+        baseLineFrame = line.getLongFramePosition();
+        ended = false;
+        playing = true;
+        startThreads();
+    }
+
+    /**
+     * Establece el volumen (0.0 a 1.0); se aplica con una rampa corta y vale para las pistas siguientes
+     */
+    public void setVolume(float newVolume) {
+        gain.setVolume(newVolume);
+    }
+
+    public float getVolume() {
+        return gain.getVolume();
+    }
+
+    /**
+     * Duración del fundido entre pistas encadenadas (0 a 12 s; 0 las une sin mezclar).
+     * Se aplica a partir de la próxima transición
+     */
+    public void setCrossfadeMicros(long micros) {
+        crossfadeMicros = Math.max(0, Math.min(MAX_CROSSFADE_MICROS, micros));
+    }
+
+    public long getCrossfadeMicros() {
+        return crossfadeMicros;
+    }
+
+    /**
+     * Indica si hay audio sonando (no pausado ni terminado)
+     */
+    public boolean isPlaying() {
+        return playing && !paused && !ended;
+    }
+
+    /**
+     * Formato PCM de la línea actual, o null si no hay pista cargada
+     */
+    public synchronized AudioFormat getFormat() {
+        return line != null ? line.getFormat() : null;
+    }
+
+    /**
+     * Indica si hay una pista cargada, aunque esté pausada o haya terminado
+     */
+    public boolean isOpen() {
+        return line != null;
+    }
+
+    /**
+     * Posición de reproducción en microsegundos según los frames que ya sonaron
+     */
+    public long getPositionMicros() {
+        if (ended) return endMicros;
+        SourceDataLine currentLine = line;
+        if (currentLine == null) return 0;
+
+        long linePosition = currentLine.getLongFramePosition();
+        long frames;
+        long offsetMicros;
+        if (pendingTrack != null && linePosition >= pendingStartFrame) {
+            // La pista encadenada ya suena aunque el hilo de salida no lo haya publicado aún
+            frames = linePosition - pendingStartFrame;
+            offsetMicros = 0;
+        } else {
+            frames = linePosition - baseLineFrame;
+            offsetMicros = baseMicros;
+        }
+        if (frames < 0) frames = 0;
+        return offsetMicros + (long) (frames * 1000000L / currentLine.getFormat().getFrameRate());
+    }
+
+    /**
+     * Pista que suena ahora, o null si no hay ninguna
+     */
+    public URL getTrack() {
+        Track current = playingTrack;
+        return current != null ? current.url : null;
+    }
+
+    /**
+     * Duración total en microsegundos, 0 si todavía no se conoce
+     */
+    public long getLengthMicros() {
+        Track current = playingTrack;
+        if (current == null) return 0;
+        long length = current.source.getLengthMicros();
+        if (length < 0) {
+            return ended ? endMicros : 0;
+        }
+        return length;
+    }
+
+    // =============== HILOS DE DECODIFICACIÓN Y SALIDA ===============
+
+    private void startThreads() {
+        if (buffersInUse) {
+            buffers = new Buffers(); // Los anteriores siguen en manos de un hilo que no terminó
+            buffersInUse = false;
+        } else {
+            buffers.ring.clear();
+            buffers.retired = false;
+        }
+        final Buffers threadBuffers = buffers;
+        // Tras abrir o vaciar la línea, lo que se escriba a partir de aquí suena desde esta posición
+        framesWritten = 0;
+        writeOriginFrame = line.getLongFramePosition();
+        final Track firstTrack = decodingTrack;
+        final long startMicros = decodeStartMicros;
+        final SourceDataLine currentLine = line;
+
+        decodeThread = new Thread(() -> decodeLoop(firstTrack, startMicros, threadBuffers), "Reproductor-Decodificador");
+        decodeThread.setDaemon(true);
+        feedThread = new Thread(() -> feedLoop(currentLine, threadBuffers), "Reproductor-Salida");
+        feedThread.setDaemon(true);
+        feedThread.setPriority(Thread.MAX_PRIORITY);
+
+        decodeThread.start();
+        feedThread.start();
+    }
+
+    /**
+     * Detiene los hilos esperando como mucho JOIN_TIMEOUT_MS a cada uno. Devuelve el
+     * decodificador si sigue vivo (p. ej. bloqueado leyendo de una unidad de red), o null
+     */
+    private Thread stopThreads() {
+        Thread decoder = decodeThread;
+        Thread feeder = feedThread;
+        decodeThread = null;
+        feedThread = null;
+
+        if (decoder != null) decoder.interrupt();
+        if (feeder != null) feeder.interrupt();
+        buffers.retired = true;
+        buffers.ring.close();
+        if (line != null) {
+            line.flush(); // Desbloquea un write pendiente
+        }
+        join(decoder);
+        join(feeder);
+        boolean decoderAlive = decoder != null && decoder.isAlive() && decoder != Thread.currentThread();
+        if (decoderAlive || (feeder != null && feeder.isAlive() && feeder != Thread.currentThread())) {
+            buffersInUse = true; // Su buffer y sus bloques no se reutilizan
+        }
+        return decoderAlive ? decoder : null;
+    }
+
+    private void join(Thread thread) {
+        if (thread == null || thread == Thread.currentThread()) return;
+        try {
+            thread.join(JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Espera sin límite a que termine un decodificador que no se detuvo a tiempo
+     */
+    private static void awaitExit(Thread decoder) {
+        if (decoder == null) return;
+        try {
+            decoder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cierra las fuentes ya, o cuando termine el decodificador que aún podría estar leyéndolas
+     */
+    private static void closeAfter(Thread decoder, List<AudioSource> sources) {
+        if (decoder == null) {
+            for (AudioSource source : sources) {
+                closeQuietly(source);
+            }
+            return;
+        }
+        Thread closer = new Thread(() -> {
+            awaitExit(decoder);
+            for (AudioSource source : sources) {
+                closeQuietly(source);
+            }
+        }, "Reproductor-Cierre");
+        closer.setDaemon(true);
+        closer.start();
+    }
+
+    /**
+     * Decodifica la fuente bloque a bloque hacia el buffer circular.
+     * Al terminar una pista continúa con la preparada si el formato coincide;
+     * con fundido, la empieza antes y mezcla las dos hasta que la saliente acaba
+     */
+    private void decodeLoop(Track firstTrack, long startMicros, Buffers threadBuffers) {
+        AudioRingBuffer ring = threadBuffers.ring;
+        byte[] decodeChunk = threadBuffers.decodeChunk;
+        byte[] fadeChunk = threadBuffers.fadeChunk;
+        Track track = firstTrack;
+        AudioFormat format = track.source.getFormat();
+        int frameSize = format.getFrameSize();
+        long position = bytesFor(startMicros, format); // Bytes de track ya decodificados
+        Track fading = null;
+        long fadeFrames = 0;
+        long fadeDone = 0;
+        try {
+            while (!threadBuffers.retired && !Thread.currentThread().isInterrupted()) {
+                if (fading == null) {
+                    long frames = crossfadeFrames(track, position, format);
+                    if (frames > 0) {
+                        Track incoming = nextTrack.getAndSet(null);
+                        if (incoming != null && sameFormat(format, incoming.source.getFormat())) {
+                            // La entrante empieza a sonar aquí: desde este punto es la pista actual
+                            fading = track;
+                            fadingTrack = track;
+                            decodingTrack = incoming;
+                            if (!ring.markBoundary(incoming)) return;
+                            track = incoming;
+                            position = 0;
+                            fadeFrames = frames;
+                            fadeDone = 0;
+                        } else if (incoming != null && !nextTrack.compareAndSet(null, incoming)) {
+                            closeQuietly(incoming.source); // Formato distinto: se encadenará sin mezclar
+                        }
+                    }
+                }
+
+                long started = PlaybackTelemetry.now();
+                int read = track.source.read(decodeChunk, 0, decodeChunk.length);
+                if (threadBuffers.retired) return; // Se detuvo mientras leía: lo leído ya no vale
+                PlaybackTelemetry.decoded(started, read, format);
+                if (read > 0) {
+                    GainStage.scale(decodeChunk, 0, read, format, track.gain);
+                }
+                if (fading != null && read > 0) {
+                    int outgoing = readFully(fading.source, fadeChunk, read);
+                    GainStage.scale(fadeChunk, 0, outgoing, format, fading.gain);
+                    CrossfadeMixer.mix(decodeChunk, fadeChunk, read, outgoing, fadeDone, fadeFrames, format);
+                    fadeDone += read / frameSize;
+                    if (fadeDone >= fadeFrames) {
+                        finishFade(fading);
+                        fading = null;
+                    }
+                }
+
+                if (read > 0) {
+                    position += read;
+                    ring.write(decodeChunk, 0, read);
+                } else if (read < 0) {
+                    if (fading != null) {
+                        // La entrante terminó antes que el fundido (pista muy corta)
+                        finishFade(fading);
+                        fading = null;
+                    }
+                    Track next = awaitNextTrack(ring);
+                    if (next == null) break;
+                    if (!sameFormat(format, next.source.getFormat())) {
+                        // Formato distinto: no se puede encadenar en esta línea
+                        if (!nextTrack.compareAndSet(null, next)) {
+                            closeQuietly(next.source);
+                        }
+                        break;
+                    }
+                    decodingTrack = next;
+                    if (!ring.markBoundary(next)) return;
+                    track = next;
+                    position = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (IOException e) {
+            if (threadBuffers.retired) return; // Fuente cerrada al detener
+            PlaybackTelemetry.error();
+            System.err.println("Error decodificando audio: " + e.getMessage());
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            ring.markEndOfStream();
+        }
+    }
+
+    /**
+     * Frames que debe durar el fundido si ya toca empezarlo, o 0 si no.
+     * Nunca ocupa más de la mitad de la pista ni se hace sin conocer su duración
+     */
+    private long crossfadeFrames(Track track, long position, AudioFormat format) {
+        long fade = crossfadeMicros;
+        if (fade <= 0 || nextTrack.get() == null || !CrossfadeMixer.supports(format)) return 0;
+        long length = track.source.getLengthMicros();
+        if (length <= 0) return 0;
+
+        long lengthBytes = bytesFor(length, format);
+        long fadeBytes = Math.min(bytesFor(fade, format), lengthBytes / 2);
+        long remaining = lengthBytes - position;
+        if (remaining <= 0 || remaining > fadeBytes) return 0;
+        return remaining / format.getFrameSize();
+    }
+
+    /**
+     * La saliente terminó de mezclarse: se cierra salvo que aún sea la que suena
+     * (entonces la cierra checkTrackChange al llegar la línea a la frontera)
+     */
+    private void finishFade(Track fading) {
+        fadingTrack = null;
+        if (fading != playingTrack) {
+            closeQuietly(fading.source);
+        }
+    }
+
+    private static int readFully(AudioSource source, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = source.read(buffer, total, length - total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    private static long bytesFor(long micros, AudioFormat format) {
+        return (long) (micros / 1_000_000.0 * format.getFrameRate()) * format.getFrameSize();
+    }
+
+    /**
+     * Espera una pista preparada mientras quede audio en el buffer circular, para que
+     * la interfaz tenga tiempo de prepararla aunque la pista actual sea muy corta
+     */
+    private Track awaitNextTrack(AudioRingBuffer ring) throws InterruptedException {
+        synchronized (nextLock) {
+            Track next = nextTrack.getAndSet(null);
+            while (next == null && ring.available() > CHUNK_BYTES) {
+                nextLock.wait(NEXT_TRACK_POLL_MS);
+                next = nextTrack.getAndSet(null);
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Envía los datos del buffer circular a la línea y marca el fin de pista al vaciarse
+     */
+    private void feedLoop(SourceDataLine currentLine, Buffers threadBuffers) {
+        AudioRingBuffer ring = threadBuffers.ring;
+        byte[] feedChunk = threadBuffers.feedChunk;
+        AudioFormat format = currentLine.getFormat();
+        int frameSize = format.getFrameSize();
+        boolean firstBlock = true;
+        try {
+            while (true) {
+                Object boundary = ring.takeBoundary();
+                if (boundary != null) {
+                    // La siguiente pista empezará a sonar cuando la línea llegue a este frame
+                    pendingStartFrame = writeOriginFrame + framesWritten;
+                    pendingTrack = (Track) boundary;
+                }
+                int read = ring.read(feedChunk, 0, feedChunk.length, frameSize);
+                if (read < 0) break;
+                gain.process(feedChunk, 0, read, format);
+                if (!firstBlock && PlaybackTelemetry.isActive() && !paused
+                        && currentLine.available() >= currentLine.getBufferSize()) {
+                    PlaybackTelemetry.underrun(); // La línea ya no tenía nada que sonar
+                }
+                currentLine.write(feedChunk, 0, read);
+                framesWritten += read / frameSize;
+                if (firstBlock) {
+                    firstBlock = false;
+                    PlaybackTelemetry.firstBlockWritten();
+                }
+                if (Thread.currentThread().isInterrupted()) return;
+                checkTrackChange(currentLine);
+            }
+            if (Thread.currentThread().isInterrupted()) return;
+
+            // Esperar a que suene lo que queda en la línea (drain vuelve al instante si está pausada)
+            do {
+                waitWhilePaused();
+                currentLine.drain();
+                checkTrackChange(currentLine);
+            } while (paused && !Thread.currentThread().isInterrupted());
+
+            if (!Thread.currentThread().isInterrupted()) {
+                endMicros = getPositionMicros();
+                ended = true;
+                Track finished = playingTrack;
+                fireEvent(PlaybackEvent.Type.EOF, finished != null ? finished.url : null);
+            }
+        } catch (InterruptedException e) {
+            // Detenido o reposicionado desde fuera
+        }
+    }
+
+    /**
+     * Publica el cambio de pista cuando la línea alcanza el primer frame de la encadenada
+     */
+    private void checkTrackChange(SourceDataLine currentLine) {
+        Track pending = pendingTrack;
+        if (pending == null || currentLine.getLongFramePosition() < pendingStartFrame) return;
+
+        Track finished = playingTrack;
+        baseMicros = 0;
+        baseLineFrame = pendingStartFrame;
+        playingTrack = pending;
+        pendingTrack = null;
+        if (finished != null && finished != decodingTrack && finished != fadingTrack) {
+            closeQuietly(finished.source);
+        }
+        fireEvent(PlaybackEvent.Type.TRACK_CHANGED, pending.url);
+    }
+
+    private static boolean sameFormat(AudioFormat a, AudioFormat b) {
+        return a.matches(b) && b.matches(a);
+    }
+
+    private void waitWhilePaused() throws InterruptedException {
+        synchronized (pauseLock) {
+            while (paused) {
+                pauseLock.wait();
+            }
+        }
+    }
+
+    private static int lineBufferBytes(AudioFormat format) {
+        int frameSize = Math.max(1, format.getFrameSize());
+        int frames = (int) (format.getFrameRate() * LINE_BUFFER_MILLIS / 1000);
+        return Math.max(frameSize, frames * frameSize);
+    }
+
+    private static void closeQuietly(AudioSource audioSource) {
+        try {
+            audioSource.close();
+        } catch (IOException e) {
+            // Nada que hacer al cerrar
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Reproductor de Música - Metadatos de una pista
+ * @author Robert Moreira
+ */
+package reproductor1;
+
+/**
+ * Duración, formato y etiquetas de una pista, leídos de las cabeceras del
+ * archivo sin decodificar audio. Los valores desconocidos son -1 (números) o null (textos).
+ * La sonoridad (EBU R128) sí requiere decodificar: la agrega después {@link LoudnessScanner}
+ * y es NaN mientras no se haya analizado.
+ */
+public final class TrackMetadata {
+    private final String type;
+    private final long durationMicros;
+    private final int sampleRate;
+    private final int channels;
+    private final int bitsPerSample;
+    private final int bitrate;
+    private final String title;
+    private final String artist;
+    private final String album;
+    private final float loudness;
+    private final float peak;
+
+    public TrackMetadata(String type, long durationMicros, int sampleRate, int channels,
+                         int bitsPerSample, int bitrate, String title, String artist, String album) {
+        this(type, durationMicros, sampleRate, channels, bitsPerSample, bitrate, title, artist, album, Float.NaN, Float.NaN);
+    }
+
+    public TrackMetadata(String type, long durationMicros, int sampleRate, int channels, int bitsPerSample,
+                         int bitrate, String title, String artist, String album, float loudness, float peak) {
+        this.type = type;
+        this.durationMicros = durationMicros;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.bitsPerSample = bitsPerSample;
+        this.bitrate = bitrate;
+        this.title = title;
+        this.artist = artist;
+        this.album = album;
+        this.loudness = loudness;
+        this.peak = peak;
+    }
+
+    /**
+     * Copia con la sonoridad integrada (LUFS) y el pico de muestra (1.0 = escala completa)
+     */
+    public TrackMetadata withLoudness(float loudness, float peak) {
+        return new TrackMetadata(type, durationMicros, sampleRate, channels, bitsPerSample, bitrate,
+            title, artist, album, loudness, peak);
+    }
+
+    /**
+     * Copia marcada como imposible de analizar (sin decodificador para su contenido),
+     * para que no se vuelva a intentar mientras el archivo no cambie
+     */
+    public TrackMetadata withoutLoudness() {
+        return withLoudness(Float.POSITIVE_INFINITY, Float.NaN);
+    }
+
+    /**
+     * Formato del contenedor: "WAV", "AIFF", "AU" o "MP3"
+     */
+    public String getType() {
+        return type;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * Tasa de bits en bits por segundo (promedio en MP3 VBR)
+     */
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    /**
+     * Si ya se analizó, aunque el resultado fuera "no analizable"
+     */
+    public boolean hasLoudness() {
+        return !Float.isNaN(loudness);
+    }
+
+    /**
+     * Sonoridad integrada EBU R128 en LUFS (NaN si no se analizó; -inf si es silencio;
+     * +inf si no se pudo decodificar)
+     */
+    public float getLoudness() {
+        return loudness;
+    }
+
+    /**
+     * Pico de muestra, 1.0 = escala completa (NaN si no se analizó)
+     */
+    public float getPeak() {
+        return peak;
+    }
+
+    /**
+     * "Artista - Título" si las etiquetas lo permiten, o null para usar el nombre del archivo
+     */
+    public String getDisplayName() {
+        if (title == null) return null;
+        return artist != null ? artist + " - " + title : title;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + sampleRate + " Hz, " + channels + " canales, " + (durationMicros / 1000) + " ms"
+            + (title != null ? " [" + getDisplayName() + "]" : "");
+    }
+}
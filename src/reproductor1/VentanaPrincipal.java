@@ -9,6 +9,7 @@ import java.awt.*;
 import java.awt.datatransfer.*;
 import java.awt.event.*;
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 import javax.swing.*;
@@ -26,7 +27,7 @@ import javax.swing.border.*;
 public class VentanaPrincipal extends JFrame {
     
     // Variables principales
-    private LinkedList<URL> miLista = null;
+    private Playlist miLista = null;
     private int currentTrack = -1;
     
     // Componentes de la interfaz moderna
@@ -41,7 +42,7 @@ public class VentanaPrincipal extends JFrame {
     private JLabel trackInfoLabel;
     
     private JList<String> playlistJList;
-    private DefaultListModel<String> playlistModel;
+    private PlaylistListModel playlistModel;
     private JScrollPane playlistScrollPane;
     
     // Botones principales de control
@@ -51,18 +52,34 @@ public class VentanaPrincipal extends JFrame {
     private JButton nextButton;
     private JButton repeatButton;
     private JButton shuffleButton;
+    private JButton gaplessButton;
+    private JButton crossfadeButton;
     
     // Estado del reproductor
     private boolean isPlaying = false;
+    private boolean loadingTrack = false; // Hay una pista abriéndose en el hilo de audio
+    private long playRequest = 0; // Identifica la última orden de reproducción enviada
     private int repeatMode = 0; // 0: sin repetir, 1: repetir lista, 2: repetir canción
     private boolean shuffleMode = false;
-    private java.util.Set<Integer> playedTracks = new java.util.HashSet<>(); // Canciones ya reproducidas en el ciclo actual
-    private java.util.List<Integer> availableTracks = new java.util.ArrayList<>(); // Canciones disponibles para reproducir
+    private final ShuffleEngine shuffle = new ShuffleEngine(); // Orden aleatorio del ciclo actual (sin repeticiones)
+    private final PlaybackHistory history = new PlaybackHistory(); // Pistas que sonaron, para Anterior/Siguiente
+    private boolean gaplessMode = true; // Encadenar pistas sin silencio entre ellas
+    private int preparedTrack = -1; // Pista abierta por adelantado para la transición sin pausa
+    private URL preparedURL = null;
+    private static final int[] CROSSFADE_STEPS = {0, 2, 4, 6, 8, 10, 12}; // Segundos de fundido disponibles
+    private int crossfadeSeconds = 0;
     
     // Botones de gestión de playlist
     private JButton addTrackButton;
     private JButton removeButton;
     private JButton clearPlaylistButton;
+    private JButton addFolderButton;
+    private JButton importPlaylistButton;
+    private JButton exportPlaylistButton;
+    private final LibraryScanner libraryScanner = new LibraryScanner(); // Importación de carpetas
+    private boolean scanningLibrary = false;
+    private boolean playlistRestored = false; // Hasta restaurar la lista guardada no se sobrescribe
+    private final PlaylistDuration playlistDuration = new PlaylistDuration(); // Duración total, al día en cada edición
     
     // Botones de reordenamiento
     private JButton moveUpButton;
@@ -80,10 +97,13 @@ public class VentanaPrincipal extends JFrame {
     // Variables de tiempo y volumen
     private int currentTime = 0;
     private int totalTime = 0;
+    private long totalMicros = 0;
     private int currentVolume = 75; // Volumen inicial 75%
-    private javax.swing.Timer timelineTimer;
+    // Pasos de la línea de tiempo: con actualizaciones cada 50 ms avanza de forma continua
+    private static final int TIMELINE_STEPS = 1000;
+    // Textos "m:ss" ya formateados, creados la primera vez que se muestran (hasta 2 horas)
+    private static final String[] TIME_LABELS = new String[2 * 60 * 60];
     private boolean userInteracting = false; // Variable para saber si el usuario está interactuando
-    private Thread trackEndDetectorThread = null; // Thread para detectar fin de canción
     
     // Colores del tema moderno
     private final Color PRIMARY_COLOR = new Color(25, 25, 25);
@@ -94,21 +114,54 @@ public class VentanaPrincipal extends JFrame {
     
     public VentanaPrincipal() {
         // Crear automáticamente la lista de reproducción al inicializar
-        miLista = new LinkedList<>();
+        miLista = new Playlist();
         
         initializeComponents();
         setupLayout();
         setupEventListeners();
         configureWindow();
         
+        // Escuchar los eventos del motor de audio (llegan desde hilos de audio)
+        NodoLista.addPlaybackListener(event -> SwingUtilities.invokeLater(() -> handlePlaybackEvent(event)));
+        // La posición llega ya en el EDT y solo cuando cambia
+        NodoLista.addPositionListener(this::updateTimeline);
+        
         // Actualizar la interfaz con la lista inicial
         updateStatus("Lista de reproducción creada - Listo para agregar música");
         updateTrackInfo();
+        
+        // Recuperar la lista de la sesión anterior una vez visible la ventana, y guardarla al cerrar
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                java.util.concurrent.CompletableFuture<?> restored = restoreSavedPlaylist();
+                if (Boolean.getBoolean("reproductor.cds.entrenamiento")) {
+                    // Ejecución de entrenamiento del archivo CDS ("ant jar"): salir con la ventana lista
+                    restored.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> System.exit(0)));
+                }
+            }
+            
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveCurrentPlaylist();
+            }
+            
+            // Minimizada no se actualiza la línea de tiempo: ni lecturas ni trabajo en el EDT
+            @Override
+            public void windowIconified(WindowEvent e) {
+                NodoLista.suspenderPosicion(true);
+            }
+            
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                NodoLista.suspenderPosicion(false);
+            }
+        });
     }
     
     private void initializeComponents() {
-        // Configurar modelo de lista
-        playlistModel = new DefaultListModel<>();
+        // Configurar modelo de lista (lee directamente de miLista)
+        playlistModel = new PlaylistListModel(miLista, this::getDisplayName);
         playlistJList = new JList<>(playlistModel);
         
         // Configurar paneles principales
@@ -116,7 +169,7 @@ public class VentanaPrincipal extends JFrame {
         headerPanel = new JPanel(new BorderLayout());
         playlistPanel = new JPanel(new BorderLayout());
         controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
-        buttonPanel = new JPanel(new GridLayout(2, 3, 10, 10)); // Cambiado a 2 filas, 3 columnas
+        buttonPanel = new JPanel(new GridLayout(2, 4, 10, 10)); // 2 filas, 4 columnas
         
         // Configurar labels
         titleLabel = new JLabel("Reproductor de Música Moderno", JLabel.CENTER);
@@ -151,6 +204,8 @@ public class VentanaPrincipal extends JFrame {
         playlistJList.setSelectionBackground(ACCENT_COLOR);
         playlistJList.setSelectionForeground(Color.WHITE);
         playlistJList.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        // Celdas de tamaño fijo: la JList no recorre todas las filas para calcular su tamaño
+        playlistJList.setPrototypeCellValue("00000. Nombre de la canción de ejemplo.mp3");
         
         // Habilitar drag & drop para reordenar
         playlistJList.setDragEnabled(true);
@@ -195,6 +250,14 @@ public class VentanaPrincipal extends JFrame {
         // Botón Shuffle
         shuffleButton = createStyledButton("ALT", new Color(123, 104, 238));
         updateShuffleButton();
+        
+        // Botón de reproducción sin pausas entre pistas
+        gaplessButton = createStyledButton("GAP", new Color(0, 150, 136));
+        updateGaplessButton();
+        
+        // Botón de fundido entre pistas
+        crossfadeButton = createStyledButton("FUN", new Color(108, 117, 125));
+        updateCrossfadeButton();
     }
     
     private void setupManagementButtons() {
@@ -207,6 +270,15 @@ public class VentanaPrincipal extends JFrame {
         clearPlaylistButton = createStyledButton("Limpiar Lista", new Color(220, 53, 69));
         clearPlaylistButton.setToolTipText("Eliminar todas las canciones de la lista");
         
+        addFolderButton = createStyledButton("Agregar Carpeta", new Color(32, 201, 151));
+        addFolderButton.setToolTipText("Agregar una carpeta completa (al repetirla solo se leen los cambios)");
+        
+        importPlaylistButton = createStyledButton("Importar Lista", new Color(32, 201, 151));
+        importPlaylistButton.setToolTipText("Agregar las pistas de una lista guardada (RPL, M3U, M3U8, PLS)");
+        
+        exportPlaylistButton = createStyledButton("Exportar Lista", new Color(75, 85, 99));
+        exportPlaylistButton.setToolTipText("Guardar la lista actual (RPL, M3U, M3U8, PLS)");
+        
         // Botones de reordenamiento
         moveUpButton = createStyledButton("Subir", new Color(75, 85, 99));
         moveUpButton.setToolTipText("Mover la canción seleccionada hacia arriba");
@@ -217,7 +289,7 @@ public class VentanaPrincipal extends JFrame {
     
     private void setupTimelineAndVolume() {
         // Configurar línea de tiempo
-        timelineSlider = new JSlider(0, 100, 0);
+        timelineSlider = new JSlider(0, TIMELINE_STEPS, 0);
         timelineSlider.setBackground(SECONDARY_COLOR);
         timelineSlider.setForeground(ACCENT_COLOR);
         timelineSlider.setEnabled(false); // Habilitado solo durante reproducción
@@ -243,6 +315,7 @@ public class VentanaPrincipal extends JFrame {
         volumeSlider.setBackground(SECONDARY_COLOR);
         volumeSlider.setForeground(ACCENT_COLOR);
         volumeSlider.setPreferredSize(new Dimension(100, 30));
+        NodoLista.setVolume(currentVolume / 100.0f); // El volumen inicial vale desde la primera pista
         
         volumeLabel = new JLabel("Vol: " + currentVolume + "%");
         volumeLabel.setForeground(TEXT_COLOR);
@@ -254,9 +327,6 @@ public class VentanaPrincipal extends JFrame {
         volumePanel.setBackground(SECONDARY_COLOR);
         volumePanel.add(volumeLabel);
         volumePanel.add(volumeSlider);
-        
-        // Configurar timer para actualizar línea de tiempo
-        timelineTimer = new javax.swing.Timer(500, e -> updateTimeline()); // Reducir a 500ms para más suavidad
     }
     
     private JButton createStyledButton(String text, Color bgColor) {
@@ -317,6 +387,8 @@ public class VentanaPrincipal extends JFrame {
         buttonsControlPanel.add(nextButton);
         buttonsControlPanel.add(repeatButton);
         buttonsControlPanel.add(shuffleButton);
+        buttonsControlPanel.add(gaplessButton);
+        buttonsControlPanel.add(crossfadeButton);
         
         // Crear sub-panel para línea de tiempo y volumen
         JPanel timelineVolumeControlPanel = new JPanel(new BorderLayout(10, 5));
@@ -344,8 +416,9 @@ public class VentanaPrincipal extends JFrame {
         buttonPanel.add(clearPlaylistButton);
         buttonPanel.add(moveUpButton);
         buttonPanel.add(moveDownButton);
-        // Agregar un panel vacío para mantener la simetría del grid 2x3
-        buttonPanel.add(new JLabel());
+        buttonPanel.add(addFolderButton);
+        buttonPanel.add(importPlaylistButton);
+        buttonPanel.add(exportPlaylistButton);
         
         // Panel principal
         mainPanel.setBackground(PRIMARY_COLOR);
@@ -370,11 +443,16 @@ public class VentanaPrincipal extends JFrame {
         nextButton.addActionListener(e -> playNextTrack());
         repeatButton.addActionListener(e -> toggleRepeatMode());
         shuffleButton.addActionListener(e -> toggleShuffleMode());
+        gaplessButton.addActionListener(e -> toggleGaplessMode());
+        crossfadeButton.addActionListener(e -> cycleCrossfade());
         
         // Eventos de gestión de playlist
         addTrackButton.addActionListener(e -> addTrack());
         removeButton.addActionListener(e -> removeSelectedTrack());
         clearPlaylistButton.addActionListener(e -> clearPlaylist());
+        addFolderButton.addActionListener(e -> addFolder());
+        importPlaylistButton.addActionListener(e -> importPlaylist());
+        exportPlaylistButton.addActionListener(e -> exportPlaylist());
         
         // Eventos de reordenamiento
         moveUpButton.addActionListener(e -> moveTrackUp());
@@ -462,56 +540,59 @@ public class VentanaPrincipal extends JFrame {
         });
     }
     
-    private void updateTimeline() {
+    /**
+     * Posición publicada por el reproductor (en el EDT): solo se tocan los
+     * componentes cuyo valor visible cambia
+     */
+    private void updateTimeline(long positionMicros, long lengthMicros) {
         // Solo actualizar si realmente está reproduciéndose y no hay interacción del usuario
-        if (NodoLista.estaReproduciendo() && !userInteracting && !timelineSlider.getValueIsAdjusting()) {
-            try {
-                // Obtener tiempo actual y total de la canción
-                long currentTimeMs = NodoLista.getCurrentTime();
-                long totalTimeMs = NodoLista.getTotalTime();
-                
-                if (totalTimeMs > 0) {
-                    int newCurrentTime = (int) (currentTimeMs / 1000);
-                    int newTotalTime = (int) (totalTimeMs / 1000);
-                    
-                    // Solo actualizar si el tiempo ha cambiado significativamente
-                    if (Math.abs(newCurrentTime - currentTime) >= 1) {
-                        currentTime = newCurrentTime;
-                        totalTime = newTotalTime;
-                        
-                        // Actualizar slider de forma thread-safe
-                        SwingUtilities.invokeLater(() -> {
-                            if (!userInteracting && !timelineSlider.getValueIsAdjusting()) {
-                                int percentage = (int) ((currentTimeMs * 100) / totalTimeMs);
-                                timelineSlider.setValue(percentage);
-                            }
-                        });
-                        
-                        // Actualizar labels de tiempo
-                        SwingUtilities.invokeLater(() -> {
-                            currentTimeLabel.setText(formatTime(currentTime));
-                            totalTimeLabel.setText(formatTime(totalTime));
-                        });
-                    }
-                }
-            } catch (Exception e) {
-                // Evitar que errores en la actualización afecten la reproducción
-                System.err.println("Error actualizando timeline: " + e.getMessage());
-            }
+        if (!isPlaying || userInteracting || timelineSlider.getValueIsAdjusting() || lengthMicros <= 0) {
+            return;
+        }
+        totalMicros = lengthMicros;
+        int value = (int) Math.min(TIMELINE_STEPS, positionMicros * TIMELINE_STEPS / lengthMicros);
+        if (value != timelineSlider.getValue()) {
+            timelineSlider.setValue(value);
+        }
+        
+        int newCurrentTime = (int) (positionMicros / 1_000_000);
+        int newTotalTime = (int) (lengthMicros / 1_000_000);
+        if (newCurrentTime != currentTime) {
+            currentTime = newCurrentTime;
+            currentTimeLabel.setText(formatTime(currentTime));
+        }
+        if (newTotalTime != totalTime) {
+            totalTime = newTotalTime;
+            totalTimeLabel.setText(formatTime(totalTime));
         }
     }
     
-    private void seekToPosition(int percentage) {
-        if (totalTime > 0) {
-            long newTimeMs = (long) ((percentage / 100.0) * totalTime * 1000);
+    private void seekToPosition(int value) {
+        if (totalMicros > 0) {
+            long newTimeMs = totalMicros * value / TIMELINE_STEPS / 1000;
             NodoLista.seekTo(newTimeMs);
         }
     }
     
-    private String formatTime(int seconds) {
+    /**
+     * "m:ss"; los textos de las dos primeras horas se guardan al crearlos
+     */
+    private static String formatTime(int seconds) {
+        if (seconds >= 0 && seconds < TIME_LABELS.length) {
+            String label = TIME_LABELS[seconds];
+            if (label == null) {
+                label = buildTime(seconds);
+                TIME_LABELS[seconds] = label;
+            }
+            return label;
+        }
+        return buildTime(seconds);
+    }
+    
+    private static String buildTime(int seconds) {
         int minutes = seconds / 60;
         int secs = seconds % 60;
-        return String.format("%d:%02d", minutes, secs);
+        return minutes + (secs < 10 ? ":0" : ":") + secs;
     }
     
     // =============== MÉTODOS DE CONTROL DE REPRODUCCIÓN ===============
@@ -520,6 +601,9 @@ public class VentanaPrincipal extends JFrame {
      * Método unificado que alterna entre reproducir y pausar
      */
     private void togglePlayPause() {
+        if (loadingTrack) {
+            return; // Esperar a que termine de abrirse la pista
+        }
         if (isPlaying) {
             pausePlayback();
         } else {
@@ -545,146 +629,196 @@ public class VentanaPrincipal extends JFrame {
         
         currentTrack = selectedIndex;
         
-        try {
-            // Interrumpir detector anterior si existe antes de iniciar nueva reproducción
-            if (trackEndDetectorThread != null && trackEndDetectorThread.isAlive()) {
-                trackEndDetectorThread.interrupt();
-            }
-            
-            // Detener cualquier audio anterior
-            NodoLista.detenerAudio();
-            
-            // Pequeña pausa para asegurar que el audio anterior se detuvo
-            Thread.sleep(100);
-            
-            // Usar la nueva funcionalidad de audio
-            URL selectedTrack = miLista.get(currentTrack);
-            boolean success = NodoLista.reproducirAudio(selectedTrack);
-            
-            if (success) {
-                isPlaying = true;
-                updatePlayPauseButton();
-                updateStatus("Reproduciendo...");
-                updateTrackInfo();
-                stopButton.setEnabled(true);
-                
-                // Habilitar línea de tiempo y iniciar timer
-                timelineSlider.setEnabled(true);
-                if (timelineTimer != null) {
-                    timelineTimer.start();
+        // La pista se abre en el hilo de audio; la interfaz sigue respondiendo mientras tanto
+        // (play detiene el audio anterior y descarta la pista preparada)
+        preparedTrack = -1;
+        preparedURL = null;
+        loadingTrack = true;
+        final long request = ++playRequest;
+        URL selectedTrack = miLista.get(currentTrack);
+        updateStatus("Cargando...");
+        updateTrackInfo();
+        
+        NodoLista.playAsync(selectedTrack).whenComplete((handle, error) ->
+            SwingUtilities.invokeLater(() -> {
+                if (request != playRequest) {
+                    return; // Otra orden posterior reemplazó a esta
                 }
-                
-                // Crear un hilo para detectar cuando termine la canción
-                createTrackEndDetector();
-            } else {
-                showMessage("Error al reproducir la pista", "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception e) {
-            showMessage("Error al reproducir la pista: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+                loadingTrack = false;
+                if (error == null) {
+                    onPlaybackStarted();
+                } else {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    isPlaying = false;
+                    updatePlayPauseButton();
+                    updateStatus("Error al reproducir");
+                    showMessage("Error al reproducir la pista: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
     }
     
     /**
-     * Crea un detector para saber cuándo termina la canción actual
+     * La pista pedida ya suena: actualizar controles (en el EDT)
      */
-    private void createTrackEndDetector() {
-        // Interrumpir detector anterior si existe
-        if (trackEndDetectorThread != null && trackEndDetectorThread.isAlive()) {
-            trackEndDetectorThread.interrupt();
+    private void onPlaybackStarted() {
+        isPlaying = true;
+        updatePlayPauseButton();
+        updateStatus("Reproduciendo...");
+        updateTrackInfo();
+        stopButton.setEnabled(true);
+        
+        if (shuffleMode) {
+            shuffle.markPlayed(currentTrack); // Elegida a mano o por el ciclo: no repetirla
         }
+        recordInHistory(currentTrack);
         
-        trackEndDetectorThread = new Thread(() -> {
-            try {
-                // Esperar mientras la canción esté reproduciéndose
-                while (isPlaying && !Thread.currentThread().isInterrupted()) {
-                    boolean audioPlaying = NodoLista.estaReproduciendo();
-                    
-                    // Solo verificar si realmente terminó si hemos estado reproduciéndose
-                    if (!audioPlaying) {
-                        // Verificar múltiples veces para asegurar que realmente terminó
-                        Thread.sleep(1000);
-                        
-                        // Doble verificación
-                        if (!NodoLista.estaReproduciendo() && isPlaying && !Thread.currentThread().isInterrupted()) {
-                            // Verificar que no sea una pausa temporal
-                            long currentTime = NodoLista.getCurrentTime();
-                            long totalTime = NodoLista.getTotalTime();
-                            
-                            // Solo considerar como "terminado" si estamos cerca del final
-                            if (totalTime > 0 && currentTime >= (totalTime - 2000)) { // 2 segundos de margen
-                                SwingUtilities.invokeLater(() -> handleTrackEnd());
-                                break;
-                            }
-                        }
-                    }
-                    
-                    Thread.sleep(1000); // Verificar cada segundo
-                }
-            } catch (InterruptedException e) {
-                // Thread interrumpido, salir silenciosamente
-            }
-        });
-        trackEndDetectorThread.start();
+        // Habilitar línea de tiempo (la posición la publica el reproductor)
+        timelineSlider.setEnabled(true);
+        
+        // El fin de la canción llega como evento EOF del motor (handlePlaybackEvent)
+        
+        // Abrir la siguiente pista por adelantado para encadenarla sin pausa
+        prepareNextTrack();
     }
     
     /**
      * Maneja lo que sucede cuando una canción termina de reproducirse
      */
     private void handleTrackEnd() {
-        // Verificar una vez más que realmente terminó
-        if (!NodoLista.estaReproduciendo() && isPlaying) {
+        // Ignorar un EOF atrasado si ya suena (o se está abriendo) otra pista o el usuario detuvo la reproducción
+        if (!NodoLista.estaReproduciendo() && isPlaying && !loadingTrack) {
             if (repeatMode == 2) { // Repetir canción
-                // Pequeña pausa antes de repetir para evitar problemas
-                javax.swing.Timer delayTimer = new javax.swing.Timer(100, e -> {
-                    playSelectedTrack(); // Reproducir la misma canción otra vez
-                    ((javax.swing.Timer) e.getSource()).stop();
-                });
-                delayTimer.setRepeats(false);
-                delayTimer.start();
+                playSelectedTrack(); // Reproducir la misma canción otra vez
             } else if (repeatMode == 1) { // Repetir lista
                 // Para repetir lista, siempre avanzar (o volver al inicio si es la última)
                 if (miLista != null && !miLista.isEmpty()) {
-                    javax.swing.Timer delayTimer = new javax.swing.Timer(100, e -> {
-                        if (miLista.size() == 1) {
-                            // Si solo hay una canción, repetirla directamente
-                            playSelectedTrack();
-                        } else {
-                            // Si hay múltiples canciones, avanzar normalmente
-                            playNextTrack();
-                        }
-                        ((javax.swing.Timer) e.getSource()).stop();
-                    });
-                    delayTimer.setRepeats(false);
-                    delayTimer.start();
+                    if (miLista.size() == 1) {
+                        // Si solo hay una canción, repetirla directamente
+                        playSelectedTrack();
+                    } else {
+                        // Si hay múltiples canciones, avanzar normalmente
+                        playNextTrack();
+                    }
                 }
             } else {
                 // Modo normal: avanzar a la siguiente canción (si existe)
-                javax.swing.Timer delayTimer = new javax.swing.Timer(100, e -> {
-                    playNextTrack();
-                    ((javax.swing.Timer) e.getSource()).stop();
-                });
-                delayTimer.setRepeats(false);
-                delayTimer.start();
+                playNextTrack();
             }
         }
     }
     
+    /**
+     * Atiende los eventos publicados por el motor de audio (ya en el EDT)
+     */
+    private void handlePlaybackEvent(PlaybackEvent event) {
+        switch (event.getType()) {
+            case TRACK_CHANGED:
+                handleGaplessTransition(event.getTrack());
+                break;
+            case EOF:
+                handleTrackEnd();
+                break;
+            default:
+                // STOP lo provoca la propia interfaz, no requiere acción
+                break;
+        }
+    }
+    
+    /**
+     * La pista preparada empezó a sonar sin pausa: avanzar el estado igual que playNextTrack
+     */
+    private void handleGaplessTransition(URL track) {
+        if (miLista == null || track == null) return;
+        
+        int newTrack = preparedTrack;
+        if (newTrack < 0 || newTrack >= miLista.size() || !track.equals(miLista.get(newTrack))) {
+            newTrack = miLista.indexOf(track);
+        }
+        preparedTrack = -1;
+        preparedURL = null;
+        if (newTrack < 0) return; // La pista ya no está en la lista
+        
+        if (shuffleMode && newTrack != currentTrack) {
+            // Avanzar el ciclo aleatorio con la pista que empezó a sonar
+            shuffle.markPlayed(newTrack);
+            updateStatus(String.format("🎵 Aleatorio: %d de %d reproducidas", shuffle.playedCount(), shuffle.size()));
+        } else {
+            updateStatus("Reproduciendo...");
+        }
+        
+        currentTrack = newTrack;
+        recordInHistory(currentTrack);
+        playlistJList.setSelectedIndex(currentTrack);
+        updateTrackInfo();
+        currentTime = 0;
+        timelineSlider.setValue(0);
+        currentTimeLabel.setText(formatTime(0));
+        
+        prepareNextTrack();
+    }
+    
+    /**
+     * Abre por adelantado la pista que sonará después de la actual
+     */
+    private void prepareNextTrack() {
+        // El fundido también necesita la siguiente pista abierta por adelantado
+        if ((!gaplessMode && crossfadeSeconds == 0) || currentTrack < 0 || miLista == null || miLista.isEmpty()) {
+            cancelPreparedTrack();
+            return;
+        }
+        
+        int next = peekNextTrack();
+        if (next < 0) {
+            cancelPreparedTrack();
+            return;
+        }
+        
+        URL nextURL = miLista.get(next);
+        if (next == preparedTrack && nextURL.equals(preparedURL)) {
+            return; // Ya está preparada
+        }
+        // Se abre en el hilo de audio; si falla, la transición será la normal por EOF
+        NodoLista.prepararSiguiente(nextURL);
+        preparedTrack = next;
+        preparedURL = nextURL;
+    }
+    
+    private void cancelPreparedTrack() {
+        if (preparedTrack >= 0) {
+            NodoLista.cancelarSiguiente();
+        }
+        preparedTrack = -1;
+        preparedURL = null;
+    }
+    
+    /**
+     * Calcula qué pista sonará al terminar la actual sin modificar el estado
+     * (mismo orden que handleTrackEnd / playNextTrack / playNextShuffleTrack)
+     */
+    private int peekNextTrack() {
+        if (repeatMode == 2) {
+            return currentTrack; // Repetir canción
+        }
+        int forward = historyNextTrack();
+        if (forward >= 0) {
+            return forward; // Se había retrocedido: rehacer el mismo camino
+        }
+        if (shuffleMode) {
+            // Se sortea ahora y playNextShuffleTrack tomará la misma; al cerrar el ciclo no se encadena
+            return shuffle.peekNext();
+        }
+        if (currentTrack < miLista.size() - 1) {
+            return currentTrack + 1;
+        }
+        return 0; // Al llegar al final de la lista se vuelve al inicio
+    }
+    
     private void pausePlayback() {
         if (NodoLista.estaReproduciendo()) {
             NodoLista.pausarAudio();
             isPlaying = false;
             updatePlayPauseButton();
             updateStatus("Pausado");
-            
-            // Interrumpir detector de fin de canción
-            if (trackEndDetectorThread != null && trackEndDetectorThread.isAlive()) {
-                trackEndDetectorThread.interrupt();
-            }
-            
-            // Pausar timer de línea de tiempo
-            if (timelineTimer != null) {
-                timelineTimer.stop();
-            }
         }
     }
     
@@ -697,14 +831,6 @@ public class VentanaPrincipal extends JFrame {
             isPlaying = true;
             updatePlayPauseButton();
             updateStatus("Reproduciendo...");
-            
-            // Crear un nuevo detector para cuando termine la canción
-            createTrackEndDetector();
-            
-            // Reanudar timer de línea de tiempo
-            if (timelineTimer != null) {
-                timelineTimer.start();
-            }
         }
     }
     
@@ -725,6 +851,10 @@ public class VentanaPrincipal extends JFrame {
     
     private void stopPlayback() {
         NodoLista.detenerAudio();
+        playRequest++; // Ignorar una carga que aún esté en curso
+        loadingTrack = false;
+        preparedTrack = -1;
+        preparedURL = null;
         currentTrack = -1;
         isPlaying = false;
         updatePlayPauseButton();
@@ -733,25 +863,27 @@ public class VentanaPrincipal extends JFrame {
         playlistJList.clearSelection();
         updateTrackInfo();
         
-        // Interrumpir detector de fin de canción
-        if (trackEndDetectorThread != null && trackEndDetectorThread.isAlive()) {
-            trackEndDetectorThread.interrupt();
-        }
-        
-        // Detener timer y resetear línea de tiempo
-        if (timelineTimer != null) {
-            timelineTimer.stop();
-        }
+        // Resetear línea de tiempo
         timelineSlider.setValue(0);
         timelineSlider.setEnabled(false);
-        currentTimeLabel.setText("0:00");
-        totalTimeLabel.setText("0:00");
+        currentTime = 0;
+        totalTime = 0;
+        totalMicros = 0;
+        currentTimeLabel.setText(formatTime(0));
+        totalTimeLabel.setText(formatTime(0));
     }
     
     private void playPreviousTrack() {
         if (miLista == null || miLista.isEmpty()) return;
         
-        if (currentTrack > 0) {
+        // Volver a la pista que realmente sonó antes (también en modo aleatorio)
+        int previous = history.hasPrevious() ? miLista.indexOfId(history.previous(), history.currentHint()) : -1;
+        if (previous >= 0) {
+            currentTrack = previous;
+        } else if (shuffleMode) {
+            // Sin historial no hay una anterior con sentido: reiniciar la actual
+            if (currentTrack < 0 || currentTrack >= miLista.size()) return;
+        } else if (currentTrack > 0) {
             currentTrack--;
         } else {
             currentTrack = miLista.size() - 1; // Ir al último
@@ -761,6 +893,27 @@ public class VentanaPrincipal extends JFrame {
         playSelectedTrack();
     }
     
+    /**
+     * Registra en el historial la pista que empezó a sonar. Si es la siguiente
+     * del historial (tras retroceder) solo se avanza, conservando el resto del camino
+     */
+    private void recordInHistory(int track) {
+        if (track < 0 || track >= miLista.size()) return;
+        int id = miLista.getId(track);
+        if (history.peekNext() == id) {
+            history.next();
+        }
+        history.push(id, track); // Nueva entrada, o solo actualiza la posición de la actual
+    }
+    
+    /**
+     * Pista siguiente según el historial (solo si se había retrocedido), o -1
+     */
+    private int historyNextTrack() {
+        int id = history.peekNext();
+        return id >= 0 ? miLista.indexOfId(id, history.peekNextHint()) : -1;
+    }
+    
     private void playNextTrack() {
         if (miLista == null || miLista.isEmpty()) return;
         
@@ -771,7 +924,12 @@ public class VentanaPrincipal extends JFrame {
             updateStatus("Modo: Repetir lista (cambio automático)");
         }
         
-        if (shuffleMode) {
+        int forward = historyNextTrack();
+        if (forward >= 0) {
+            currentTrack = forward;
+            playlistJList.setSelectedIndex(currentTrack);
+            playSelectedTrack();
+        } else if (shuffleMode) {
             playNextShuffleTrack();
         } else {
             if (currentTrack < miLista.size() - 1) {
@@ -806,6 +964,7 @@ public class VentanaPrincipal extends JFrame {
             case 2: mode = "Repetir canción"; break;
         }
         updateStatus("Modo: " + mode);
+        prepareNextTrack();
     }
     
     /**
@@ -817,13 +976,67 @@ public class VentanaPrincipal extends JFrame {
         
         if (shuffleMode) {
             createShuffleOrder();
+            if (currentTrack >= 0) {
+                shuffle.markPlayed(currentTrack);
+            }
             updateStatus("🔀 Modo aleatorio inteligente activado (sin repeticiones)");
         } else {
-            // Limpiar el sistema de aleatorio
-            playedTracks.clear();
-            availableTracks.clear();
             updateStatus("Modo aleatorio desactivado");
         }
+        prepareNextTrack();
+    }
+    
+    /**
+     * Alterna el modo de reproducción sin pausas entre pistas
+     */
+    private void toggleGaplessMode() {
+        gaplessMode = !gaplessMode;
+        updateGaplessButton();
+        prepareNextTrack();
+        updateStatus(gaplessMode ? "Reproducción sin pausas activada" : "Reproducción sin pausas desactivada");
+    }
+    
+    /**
+     * Pasa a la siguiente duración de fundido (0, 2, 4 ... 12 s y vuelta a 0)
+     */
+    private void cycleCrossfade() {
+        int index = 0;
+        while (index < CROSSFADE_STEPS.length && CROSSFADE_STEPS[index] != crossfadeSeconds) {
+            index++;
+        }
+        crossfadeSeconds = CROSSFADE_STEPS[(index + 1) % CROSSFADE_STEPS.length];
+        NodoLista.setCrossfade(crossfadeSeconds);
+        updateCrossfadeButton();
+        prepareNextTrack();
+        updateStatus(crossfadeSeconds > 0 ? "Fundido entre pistas: " + crossfadeSeconds + " s" : "Fundido entre pistas desactivado");
+    }
+    
+    /**
+     * Actualiza el texto y color del botón de fundido
+     */
+    private void updateCrossfadeButton() {
+        if (crossfadeSeconds > 0) {
+            crossfadeButton.setText("FUN " + crossfadeSeconds + "s");
+            crossfadeButton.setBackground(new Color(0, 150, 136));
+            crossfadeButton.setToolTipText("Fundido de " + crossfadeSeconds + " s entre pistas - Click para cambiar");
+        } else {
+            crossfadeButton.setText("FUN");
+            crossfadeButton.setBackground(new Color(108, 117, 125));
+            crossfadeButton.setToolTipText("Sin fundido entre pistas - Click para activarlo");
+        }
+    }
+    
+    /**
+     * Actualiza la apariencia del botón de reproducción sin pausas
+     */
+    private void updateGaplessButton() {
+        if (gaplessMode) {
+            gaplessButton.setBackground(new Color(0, 150, 136));
+            gaplessButton.setToolTipText("Sin pausas entre pistas - Click para desactivar");
+        } else {
+            gaplessButton.setBackground(new Color(108, 117, 125));
+            gaplessButton.setToolTipText("Pausa entre pistas - Click para encadenar sin silencio");
+        }
     }
     
     /**
@@ -866,19 +1079,10 @@ public class VentanaPrincipal extends JFrame {
      * Inicializa el sistema de aleatorio sin repeticiones hasta completar un ciclo
      */
     private void createShuffleOrder() {
-        if (miLista == null || miLista.isEmpty()) return;
+        if (miLista == null) return;
         
-        // Reiniciar el sistema de aleatorio inteligente
-        playedTracks.clear();
-        availableTracks.clear();
-        
-        // Agregar todas las canciones como disponibles
-        for (int i = 0; i < miLista.size(); i++) {
-            availableTracks.add(i);
-        }
-        
-        // Mezclar la lista de canciones disponibles
-        Collections.shuffle(availableTracks);
+        // Todas las canciones disponibles; cada una se sortea al pedirla
+        shuffle.reset(miLista.size());
     }
     
     /**
@@ -888,34 +1092,22 @@ public class VentanaPrincipal extends JFrame {
         if (miLista == null || miLista.isEmpty()) return;
         
         // Inicializar si es necesario
-        if (availableTracks.isEmpty() && playedTracks.isEmpty()) {
+        if (shuffle.size() != miLista.size()) {
             createShuffleOrder();
-            if (availableTracks.isEmpty()) return;
         }
         
         // Marcar la canción actual como reproducida
         if (currentTrack >= 0 && currentTrack < miLista.size()) {
-            playedTracks.add(currentTrack);
-            availableTracks.remove(Integer.valueOf(currentTrack));
+            shuffle.markPlayed(currentTrack);
         }
         
         // Si ya no quedan canciones disponibles, reiniciar el ciclo
-        if (availableTracks.isEmpty()) {
+        if (shuffle.isCycleComplete()) {
             if (repeatMode == 1) { // Repetir lista
-                // Reiniciar ciclo completo
-                playedTracks.clear();
-                for (int i = 0; i < miLista.size(); i++) {
-                    availableTracks.add(i);
-                }
-                Collections.shuffle(availableTracks);
+                shuffle.startNewCycle();
                 updateStatus("🔀 Nuevo ciclo aleatorio iniciado");
             } else if (repeatMode == 0) { // Sin repetir - nuevo ciclo automático
-                // Crear nuevo ciclo automáticamente
-                playedTracks.clear();
-                for (int i = 0; i < miLista.size(); i++) {
-                    availableTracks.add(i);
-                }
-                Collections.shuffle(availableTracks);
+                shuffle.startNewCycle();
                 updateStatus("🔀 Ciclo aleatorio completado - Nuevo ciclo iniciado");
             } else {
                 return; // No hacer nada en otros casos
@@ -923,15 +1115,14 @@ public class VentanaPrincipal extends JFrame {
         }
         
         // Seleccionar la siguiente canción aleatoria disponible
-        if (!availableTracks.isEmpty()) {
-            currentTrack = availableTracks.get(0);
+        int next = shuffle.next();
+        if (next >= 0) {
+            currentTrack = next;
             playlistJList.setSelectedIndex(currentTrack);
             playSelectedTrack();
             
             // Mostrar progreso del ciclo aleatorio
-            int remaining = availableTracks.size() - 1; // -1 porque acabamos de tomar una
-            int total = miLista.size();
-            updateStatus(String.format("🎵 Aleatorio: %d de %d reproducidas", total - remaining, total));
+            updateStatus(String.format("🎵 Aleatorio: %d de %d reproducidas", shuffle.playedCount(), shuffle.size()));
         }
     }
     
@@ -944,11 +1135,229 @@ public class VentanaPrincipal extends JFrame {
         URL trackUrl = selectAudioFile();
         if (trackUrl != null) {
             miLista.addLast(trackUrl); // Agregar al final por defecto
+            playlistModel.fireTracksInserted(miLista.size() - 1, miLista.size() - 1);
+            playlistDuration.add(trackUrl, NodoLista.metadatosEnCache(trackUrl));
+            libraryScanner.seed(NodoLista.getFileFromURL(trackUrl).toPath(), -1, -1);
+            shuffle.insert(miLista.size() - 1);
             updatePlaylistDisplay();
+            loadMetadata(Collections.singletonList(trackUrl));
             updateStatus("Pista agregada a la lista");
         }
     }
     
+    /**
+     * Importa una carpeta en segundo plano; si ya se había importado, solo
+     * agrega los archivos nuevos y quita los que ya no existen
+     */
+    private void addFolder() {
+        if (scanningLibrary) return;
+        File folder = NodoLista.mostrarSelectorCarpeta();
+        if (folder == null) return;
+        
+        scanningLibrary = true;
+        addFolderButton.setEnabled(false);
+        updateStatus("Escaneando carpeta...");
+        
+        libraryScanner.scanAsync(folder.toPath(), batch -> {
+            // Convertir fuera del EDT y agregar el lote de una sola vez
+            java.util.List<URL> urls = new ArrayList<>(batch.size());
+            for (java.nio.file.Path path : batch) {
+                try {
+                    urls.add(NodoLista.convertToURL(path.toString()));
+                } catch (Exception e) {
+                    // Ruta que no forma una URL válida: se omite
+                }
+            }
+            SwingUtilities.invokeLater(() -> {
+                appendTracks(urls);
+                updateStatus("Escaneando carpeta... " + miLista.size() + " pistas");
+            });
+        }).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            scanningLibrary = false;
+            addFolderButton.setEnabled(true);
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                updateStatus("Error al escanear");
+                showMessage("Error al escanear la carpeta: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            removeMissingTracks(result.getRemoved());
+            refreshChangedTracks(result.getChanged());
+            updateStatus(String.format("Carpeta escaneada: %d nuevas, %d sin cambios, %d modificadas, %d eliminadas (%d ms)",
+                result.getAddedCount(), result.getUnchangedCount(), result.getChanged().size(),
+                result.getRemoved().size(), result.getElapsedMillis()));
+        }));
+    }
+    
+    /**
+     * Agrega un lote de pistas al final notificando un único rango
+     */
+    private void appendTracks(java.util.List<URL> urls) {
+        if (urls.isEmpty()) return;
+        int from = miLista.size();
+        miLista.addAll(urls);
+        playlistModel.fireTracksInserted(from, miLista.size() - 1);
+        for (URL url : urls) {
+            playlistDuration.add(url, NodoLista.metadatosEnCache(url));
+        }
+        shuffle.insert(from, urls.size());
+        updatePlaylistDisplay();
+        loadMetadata(urls);
+    }
+    
+    /**
+     * Agrega al final las pistas de una lista RPL, M3U, M3U8 o PLS
+     */
+    private void importPlaylist() {
+        File file = NodoLista.mostrarSelectorLista(false);
+        if (file == null) return;
+        
+        updateStatus("Cargando lista...");
+        loadPlaylistFile(file).whenComplete((urls, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                updateStatus("Error al cargar la lista");
+                showMessage("Error al cargar la lista: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            appendTracks(urls);
+            updateStatus(urls.size() + " pistas importadas de " + file.getName());
+        }));
+    }
+    
+    /**
+     * Guarda la lista en el formato que indique la extensión elegida
+     */
+    private void exportPlaylist() {
+        if (miLista.isEmpty()) {
+            showMessage("La lista está vacía", "Información", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        File file = NodoLista.mostrarSelectorLista(true);
+        if (file == null) return;
+        
+        try {
+            PlaylistIO.guardar(file, miLista);
+            updateStatus("Lista exportada a " + file.getName());
+        } catch (IOException e) {
+            showMessage("Error al guardar la lista: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Lee la lista en segundo plano (el lector entrega las pistas una a una) y registra
+     * sus pistas en el escáner de carpetas para que importarlas luego no las duplique
+     */
+    private java.util.concurrent.CompletableFuture<java.util.List<URL>> loadPlaylistFile(File file) {
+        return java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+            java.util.List<URL> urls = new ArrayList<>();
+            try {
+                PlaylistIO.cargar(file, urls::add);
+            } catch (IOException e) {
+                throw new java.util.concurrent.CompletionException(e);
+            }
+            MetadataCache cache = NodoLista.getMetadataCache();
+            for (URL url : urls) {
+                File track = NodoLista.getFileFromURL(url);
+                MetadataCache.Entry entry = cache.peekEntry(track.getAbsolutePath());
+                libraryScanner.seed(track.toPath(), entry != null ? entry.modified : -1, entry != null ? entry.size : -1);
+            }
+            return urls;
+        });
+    }
+    
+    /**
+     * Restaura la lista con la que se cerró la aplicación; el futuro termina al leerla
+     */
+    private java.util.concurrent.CompletableFuture<?> restoreSavedPlaylist() {
+        File saved = PlaylistIO.getDefaultFile();
+        if (!saved.exists()) {
+            playlistRestored = true;
+            return java.util.concurrent.CompletableFuture.completedFuture(null);
+        }
+        
+        return loadPlaylistFile(saved).whenComplete((urls, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                // Se conserva el archivo tal cual: guardar ahora lo reemplazaría por una lista incompleta
+                System.err.println("No se pudo restaurar la lista: " + error.getMessage());
+                return;
+            }
+            appendTracks(urls);
+            playlistRestored = true;
+            if (!urls.isEmpty()) {
+                updateStatus("Lista restaurada: " + urls.size() + " pistas");
+            }
+        }));
+    }
+    
+    /**
+     * Guarda la lista actual para restaurarla en el próximo inicio
+     */
+    private void saveCurrentPlaylist() {
+        if (!playlistRestored) return; // Restauración en curso o fallida: no perder la lista guardada
+        try {
+            PlaylistIO.guardarBinario(PlaylistIO.getDefaultFile(), miLista);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la lista: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Quita de la lista los archivos que el escaneo ya no encontró
+     */
+    private void removeMissingTracks(java.util.List<java.nio.file.Path> removed) {
+        if (removed.isEmpty()) return;
+        Set<String> missing = new HashSet<>();
+        for (java.nio.file.Path path : removed) {
+            missing.add(NodoLista.cambiarRutaFormatoJMF(path.toString()));
+        }
+        
+        // Reunir las posiciones y quitarlas todas de una pasada (lista, orden aleatorio y filas)
+        int[] indices = new int[miLista.size()];
+        int count = 0;
+        boolean currentRemoved = false;
+        int removedBeforeCurrent = 0;
+        for (int i = 0; i < miLista.size(); i++) {
+            URL url = miLista.get(i);
+            if (missing.contains(url.toString())) {
+                indices[count++] = i;
+                history.remove(miLista.getId(i));
+                playlistDuration.remove(url);
+                if (currentTrack == i) {
+                    currentRemoved = true;
+                } else if (i < currentTrack) {
+                    removedBeforeCurrent++;
+                }
+            }
+        }
+        if (count == 0) return;
+        miLista.removeIndices(indices, count);
+        shuffle.removeAll(indices, count);
+        playlistModel.refresh();
+        currentTrack -= removedBeforeCurrent;
+        if (currentRemoved) {
+            stopPlayback();
+        }
+        updatePlaylistDisplay();
+    }
+    
+    /**
+     * Vuelve a leer los metadatos de los archivos que el escaneo encontró modificados
+     * y refresca sus filas y la duración total
+     */
+    private void refreshChangedTracks(java.util.List<java.nio.file.Path> changed) {
+        if (changed.isEmpty()) return;
+        java.util.List<URL> urls = new ArrayList<>(changed.size());
+        for (java.nio.file.Path path : changed) {
+            try {
+                urls.add(NodoLista.convertToURL(path.toString()));
+            } catch (Exception e) {
+                // Ruta que no forma una URL válida: se omite
+            }
+        }
+        loadMetadata(urls);
+    }
+    
     private void removeSelectedTrack() {
         if (miLista == null || miLista.isEmpty()) {
             showMessage("No hay pistas para eliminar", "Información", JOptionPane.INFORMATION_MESSAGE);
@@ -970,7 +1379,11 @@ public class VentanaPrincipal extends JFrame {
         );
         
         if (respuesta == JOptionPane.YES_OPTION) {
+            history.remove(miLista.getId(selectedIndex));
+            playlistDuration.remove(miLista.get(selectedIndex));
             miLista.remove(selectedIndex);
+            playlistModel.fireTracksRemoved(selectedIndex, selectedIndex);
+            shuffle.remove(selectedIndex);
             
             // Ajustar currentTrack si es necesario
             if (currentTrack == selectedIndex) {
@@ -1001,7 +1414,12 @@ public class VentanaPrincipal extends JFrame {
         if (respuesta == JOptionPane.YES_OPTION) {
             stopPlayback();
             miLista.clear();
-            playlistModel.clear();
+            playlistModel.refresh();
+            playlistDuration.clear();
+            shuffle.reset(0);
+            history.clear();
+            libraryScanner.clear(); // Volver a importar una carpeta la cargará completa
+            NodoLista.cancelarAnalisisSonoridad();
             updateStatus("Lista limpiada");
         }
     }
@@ -1022,20 +1440,28 @@ public class VentanaPrincipal extends JFrame {
         return null;
     }
     
+    /**
+     * Actualiza el estado que depende de la lista tras una edición.
+     * Las filas de la JList ya se notificaron en playlistModel con el rango afectado
+     */
     private void updatePlaylistDisplay() {
-        playlistModel.clear();
-        if (miLista != null) {
-            for (int i = 0; i < miLista.size(); i++) {
-                String fileName = getFileNameFromURL(miLista.get(i));
-                playlistModel.addElement((i + 1) + ". " + fileName);
-            }
-            
-            // Regenerar orden shuffle si está activado
-            if (shuffleMode) {
-                createShuffleOrder();
-            }
-        }
+        // El orden aleatorio (shuffle.insert/remove/move) y la duración total (playlistDuration)
+        // se ajustan en cada edición sin recorrer la lista
         updateTrackInfo();
+        prepareNextTrack();
+    }
+    
+    /**
+     * Lee en segundo plano los metadatos que falten y refresca nombres y duración total
+     */
+    private void loadMetadata(java.util.List<URL> urls) {
+        NodoLista.cargarMetadatos(urls).thenRun(() -> SwingUtilities.invokeLater(() -> {
+            for (URL url : urls) {
+                playlistDuration.update(url, NodoLista.metadatosEnCache(url));
+            }
+            playlistModel.refresh();
+            updateTrackInfo();
+        })).thenRun(() -> NodoLista.analizarSonoridad(urls, null)); // Después, medir la sonoridad de las nuevas
     }
     
     private String getFileNameFromURL(URL url) {
@@ -1043,15 +1469,36 @@ public class VentanaPrincipal extends JFrame {
         return path.substring(path.lastIndexOf('/') + 1);
     }
     
+    /**
+     * "Artista - Título" de las etiquetas, o el nombre del archivo si no tiene
+     */
+    private String getDisplayName(URL url) {
+        TrackMetadata metadata = NodoLista.metadatosEnCache(url);
+        String name = metadata != null ? metadata.getDisplayName() : null;
+        return name != null ? name : getFileNameFromURL(url);
+    }
+    
     private void updateTrackInfo() {
         if (miLista == null || miLista.isEmpty()) {
             trackInfoLabel.setText("No hay pistas en la lista");
         } else if (currentTrack >= 0 && currentTrack < miLista.size()) {
-            String fileName = getFileNameFromURL(miLista.get(currentTrack));
+            String fileName = getDisplayName(miLista.get(currentTrack));
             trackInfoLabel.setText("Reproduciendo: " + fileName + " (" + (currentTrack + 1) + "/" + miLista.size() + ")");
         } else {
-            trackInfoLabel.setText("Total: " + miLista.size() + " pistas");
+            String duration = formatDuration(playlistDuration.getTotalMicros() / 1_000_000L);
+            trackInfoLabel.setText("Total: " + miLista.size() + " pistas - " + duration
+                + (playlistDuration.getUnknownTracks() > 0 ? "+" : ""));
+        }
+    }
+    
+    /**
+     * Duración larga con horas cuando hace falta (h:mm:ss)
+     */
+    private String formatDuration(long seconds) {
+        if (seconds < 3600) {
+            return formatTime((int) seconds);
         }
+        return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
     }
     
     private void updateStatus(String status) {
@@ -1074,8 +1521,9 @@ public class VentanaPrincipal extends JFrame {
         }
         
         // Intercambiar elementos en la lista
-        URL track = miLista.remove(selectedIndex);
-        miLista.add(selectedIndex - 1, track);
+        miLista.move(selectedIndex, selectedIndex - 1);
+        shuffle.move(selectedIndex, selectedIndex - 1);
+        playlistModel.fireTrackMoved(selectedIndex, selectedIndex - 1);
         
         // Actualizar currentTrack si es necesario
         if (currentTrack == selectedIndex) {
@@ -1100,8 +1548,9 @@ public class VentanaPrincipal extends JFrame {
         }
         
         // Intercambiar elementos en la lista
-        URL track = miLista.remove(selectedIndex);
-        miLista.add(selectedIndex + 1, track);
+        miLista.move(selectedIndex, selectedIndex + 1);
+        shuffle.move(selectedIndex, selectedIndex + 1);
+        playlistModel.fireTrackMoved(selectedIndex, selectedIndex + 1);
         
         // Actualizar currentTrack si es necesario
         if (currentTrack == selectedIndex) {
@@ -1126,9 +1575,10 @@ public class VentanaPrincipal extends JFrame {
             return;
         }
         
-        // Remover y agregar en la nueva posición
-        URL track = miLista.remove(fromIndex);
-        miLista.add(toIndex, track);
+        // Mover en la nueva posición (conserva el identificador de la pista)
+        miLista.move(fromIndex, toIndex);
+        shuffle.move(fromIndex, toIndex);
+        playlistModel.fireTrackMoved(fromIndex, toIndex);
         
         // Actualizar currentTrack
         if (currentTrack == fromIndex) {